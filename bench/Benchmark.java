@@ -0,0 +1,59 @@
+/**
+ * A Benchmark is one piece of the game loop measured by the
+ * BenchmarkHarness. Each measurement iteration starts with a call to setup
+ * followed by a number of timed calls to run
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public abstract class Benchmark {
+
+    private String name;
+    private int opsPerIteration;
+
+    /**
+    * The Benchmark constructor
+    *
+    * @param name The name printed in the report
+    * @param opsPerIteration How many times run is called in each timed
+    * iteration
+    */
+    public Benchmark(String name, int opsPerIteration) {
+        this.name = name;
+        this.opsPerIteration = opsPerIteration;
+    }
+
+    /**
+    * Gets the name of the Benchmark
+    *
+    * @return name The name printed in the report
+    */
+    public String getName() {
+        return name;
+    }
+
+    /**
+    * Gets the number of timed calls to run in each iteration
+    *
+    * @return opsPerIteration How many times run is called per iteration
+    */
+    public int getOpsPerIteration() {
+        return opsPerIteration;
+    }
+
+    /**
+    * Builds the state measured by the following calls to run. This is not
+    * timed
+    *
+    * @param state The game state for the current monster and tower counts
+    */
+    public abstract void setup(BenchmarkState state);
+
+    /**
+    * Runs the measured operation once
+    *
+    * @return int A value depending on the work done so that it cannot be
+    * optimized away
+    */
+    public abstract int run();
+}
@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+
+/**
+ * The BenchmarkHarness runs Benchmarks over every combination of monster and
+ * tower counts and prints the average time per operation. Each combination
+ * is warmed up before it is measured so that the JIT has compiled the code
+ * under test
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class BenchmarkHarness {
+
+    public static final int WARMUP_ITERATIONS = 3;
+    public static final int MEASURED_ITERATIONS = 5;
+
+    private int[] monsterCounts, towerCounts;
+    private ArrayList<Benchmark> benchmarks;
+    private int sink;
+
+    /**
+    * The BenchmarkHarness constructor
+    *
+    * @param monsterCounts The monster counts to measure
+    * @param towerCounts The tower counts to measure
+    */
+    public BenchmarkHarness(int[] monsterCounts, int[] towerCounts) {
+        this.monsterCounts = monsterCounts;
+        this.towerCounts = towerCounts;
+        benchmarks = new ArrayList<Benchmark>();
+    }
+
+    /**
+    * Adds a Benchmark to be run
+    *
+    * @param benchmark The Benchmark to add
+    */
+    public void add(Benchmark benchmark) {
+        benchmarks.add(benchmark);
+    }
+
+    /**
+    * Runs every Benchmark for every monster and tower count and prints one
+    * line per measurement
+    */
+    public void runAll() {
+        printHeader();
+        for (Benchmark benchmark : benchmarks) {
+            for (int monsters : monsterCounts) {
+                for (int towers : towerCounts) {
+                    report(benchmark, new BenchmarkState(monsters,
+                                                                    towers));
+                }
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+    * Runs every Benchmark against one game, such as one loaded from a
+    * snapshot, and prints one line per Benchmark
+    *
+    * @param state The game to measure
+    */
+    public void runAll(BenchmarkState state) {
+        printHeader();
+        for (Benchmark benchmark : benchmarks) {
+            report(benchmark, state);
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private void printHeader() {
+        System.out.printf("%-16s %9s %7s %16s %14s%n", "benchmark",
+                                "monsters", "towers", "ns/op", "ns/monster");
+    }
+
+    private void report(Benchmark benchmark, BenchmarkState state) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            measure(benchmark, state);
+        }
+        long total = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            total += measure(benchmark, state);
+        }
+        double perOp = (double) total / (MEASURED_ITERATIONS
+                                        * benchmark.getOpsPerIteration());
+        int monsters = state.getMonsterCount();
+        System.out.printf("%-16s %9d %7d %16.1f %14.2f%n",
+                        benchmark.getName(), monsters, state.getTowerCount(),
+                        perOp, perOp / Math.max(1, monsters));
+    }
+
+    private long measure(Benchmark benchmark, BenchmarkState state) {
+        benchmark.setup(state);
+        int ops = benchmark.getOpsPerIteration();
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            sink += benchmark.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+    * Parses a comma separated list of counts such as "10,1000,100000"
+    *
+    * @param list The comma separated counts
+    * @return int[] The parsed counts
+    */
+    public static int[] parseCounts(String list) {
+        String[] parts = list.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * BenchmarkState builds a GameEngine holding a given number of Monsters and
+ * Towers for the benchmarks to run against. Everything is built from a fixed
+ * seed so that every run measures the same map
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class BenchmarkState {
+
+    public static final long SEED = 42;
+    public static final int END_MARGIN_TICKS = 20;
+
+    private GameEngine engine;
+    private int monsterCount, towerCount;
+
+    /**
+    * Builds a game with a mix of Regular, Fast, Faster and Hard Monsters
+    * spread along the path and Basic Towers spread over the whole map. Each
+    * Monster starts at least END_MARGIN_TICKS of its own moves short of the
+    * end of the path, so that none has reached it before being measured.
+    * Towers are allowed to overlap so that the tower count is not limited by
+    * the size of the map
+    *
+    * @param monsterCount The number of Monsters on the map
+    * @param towerCount The number of Towers on the map
+    */
+    public BenchmarkState(int monsterCount, int towerCount) {
+        this.monsterCount = monsterCount;
+        this.towerCount = towerCount;
+        engine = new GameEngine(SEED);
+        Random rand = new Random(SEED);
+
+        ArrayList<Line> lines = engine.getPath();
+        CompiledPath path = engine.getCompiledPath();
+        int xStart = (int) lines.get(0).getStart().getX();
+        int yStart = (int) lines.get(0).getStart().getY();
+        MonsterStore monsters = engine.getMonsters();
+        MonsterType[] kinds = {MonsterType.get(MonsterType.REGULAR),
+                                MonsterType.get(MonsterType.FAST),
+                                MonsterType.get(MonsterType.FASTER),
+                                MonsterType.get(MonsterType.HARD)};
+        for (int i = 0; i < monsterCount; i++) {
+            MonsterType kind = kinds[rand.nextInt(kinds.length)];
+            monsters.add(kind, xStart, yStart);
+            int margin = END_MARGIN_TICKS * kind.getSpeed() * CompiledPath.STEP;
+            monsters.placeAt(i, rand.nextInt(path.getLength() - margin),
+                                                                        path);
+        }
+        monsters.sort();
+
+        for (int i = 0; i < towerCount; i++) {
+            engine.addTower(new BasicTower(
+                                    rand.nextInt(GamePanel.WIDTH - 24),
+                                    rand.nextInt(GamePanel.HEIGHT - 24)));
+        }
+    }
+
+    /**
+    * Measures a game that has already been set up, such as one loaded from
+    * a snapshot of a real game
+    *
+    * @param engine The game to measure
+    */
+    public BenchmarkState(GameEngine engine) {
+        this.engine = engine;
+        monsterCount = engine.getMonsters().size();
+        towerCount = engine.getTowers().size();
+    }
+
+    /**
+    * Gets the game being measured
+    *
+    * @return engine The GameEngine holding the Monsters and Towers
+    */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+    * Gets the number of Monsters the game was built with
+    *
+    * @return monsterCount The number of Monsters
+    */
+    public int getMonsterCount() {
+        return monsterCount;
+    }
+
+    /**
+    * Gets the number of Towers the game was built with
+    *
+    * @return towerCount The number of Towers
+    */
+    public int getTowerCount() {
+        return towerCount;
+    }
+}
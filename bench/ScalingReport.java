@@ -0,0 +1,95 @@
+/**
+ * ScalingReport runs StressScenarios of growing size headless and prints how
+ * the time per tick, the throughput and the heap grow with the number of
+ * Monsters, so the shape of the scaling curve can be seen rather than a
+ * single point. A tick here is the move, order, fire and death phases of
+ * GameEngine.step, called directly so that leaking Monsters cannot end the
+ * game part way through a run
+ *
+ * Usage: java ScalingReport [monstersPerType] [towerSpacings] [pathRows]
+ *                           [ticks]
+ * where monstersPerType and towerSpacings are comma separated lists such as
+ * "1000,10000,100000,1000000". Large runs need a large heap, such as -Xmx4g
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class ScalingReport {
+
+    public static final String MONSTERS_PER_TYPE = "1000,10000,100000,1000000";
+    public static final String TOWER_SPACINGS = "50";
+    public static final int PATH_ROWS = 20;
+    public static final int TICKS = 50;
+    public static final int WARMUP_TICKS = 10;
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        int[] counts = BenchmarkHarness.parseCounts(
+                                args.length > 0 ? args[0] : MONSTERS_PER_TYPE);
+        int[] spacings = BenchmarkHarness.parseCounts(
+                                args.length > 1 ? args[1] : TOWER_SPACINGS);
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : PATH_ROWS;
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : TICKS;
+
+        System.out.printf("%9s %7s %8s %12s %12s %16s %10s %10s%n",
+                    "monsters", "towers", "path", "ms/tick", "max ms",
+                    "monster-ticks/s", "heap MB", "B/monster");
+        for (int spacing : spacings) {
+            for (int count : counts) {
+                try {
+                    report(new StressScenario(count, spacing, rows), ticks);
+                } catch (OutOfMemoryError e) {
+                    System.out.printf("%9d %7s out of memory%n",
+                                        count * MonsterType.count(), "-");
+                }
+            }
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+    * Runs one scenario and prints one line of the report
+    *
+    * @param scenario The scenario to run
+    * @param ticks The number of ticks to measure
+    */
+    public static void report(StressScenario scenario, int ticks) {
+        GameEngine engine = scenario.getEngine();
+        int monsters = engine.getMonsters().size();
+        long heap = usedHeap();
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            tick(engine);
+        }
+        long total = 0, max = 0, monsterTicks = 0;
+        for (int i = 0; i < ticks; i++) {
+            monsterTicks += engine.getMonsters().size();
+            long start = System.nanoTime();
+            tick(engine);
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            max = Math.max(max, elapsed);
+        }
+
+        System.out.printf("%9d %7d %8d %12.3f %12.3f %16.0f %10.1f %10.1f%n",
+                    monsters, engine.getTowers().size(),
+                    engine.getCompiledPath().getLength(),
+                    total / 1e6 / ticks, max / 1e6,
+                    monsterTicks / (total / 1e9), heap / 1048576.0,
+                    (double) heap / Math.max(1, monsters));
+    }
+
+    private static void tick(GameEngine engine) {
+        engine.moveAll();
+        engine.orderMonsters();
+        engine.fireTowers();
+        sink += engine.checkForDeath()[1];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
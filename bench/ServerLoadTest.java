@@ -0,0 +1,206 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * ServerLoadTest runs a GameServer with players and spectators in one
+ * process over loopback and checks that every client's copy of the game
+ * matches the server's after every tick. The server is stepped directly
+ * rather than on its timer, so the test runs as fast as the frames can be
+ * delivered. The players take turns sending waves and asking for Towers at
+ * random places, so commands are tested too. One spectator has small
+ * socket buffers and stops reading until the server has made it skip
+ * frames, then must catch up at the next keyframe and match again. The run
+ * fails if it never skips or never catches up. With monstersPerType above 0
+ * the game is a StressScenario, so frames are large
+ *
+ * Usage: java ServerLoadTest [players] [spectators] [ticks]
+ *                            [monstersPerType]
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class ServerLoadTest {
+
+    public static final int PLAYERS = 20;
+    public static final int SPECTATORS = 200;
+    public static final int TICKS = 2000;
+    public static final int STALL_START = 100;
+    public static final int STALLED_BUFFER_SIZE = 4096;
+    public static final long SEED = 42;
+    public static final int TOWER_INTERVAL = 25;
+    public static final long FRAME_TIMEOUT_NANOS = 5000000000L;
+
+    public static void main(String[] args) throws IOException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : PLAYERS;
+        int spectators = args.length > 1 ? Integer.parseInt(args[1])
+                                                                : SPECTATORS;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : TICKS;
+        int monstersPerType = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        GameEngine engine = new GameEngine(SEED);
+        if (monstersPerType > 0) {
+            engine = new StressScenario(monstersPerType, 50, 20).getEngine();
+        }
+        GameServer server = new GameServer(engine, 0);
+        int clientCount = players + spectators;
+        GameClient[] clients = new GameClient[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            if (i == clientCount - 1 && spectators > 0) {
+                connectAll(server, i);
+                server.setSendBufferSize(STALLED_BUFFER_SIZE);
+                clients[i] = new GameClient("localhost", server.getPort(),
+                                            true, STALLED_BUFFER_SIZE);
+            } else {
+                clients[i] = new GameClient("localhost", server.getPort(),
+                                                                i >= players);
+            }
+            server.pollNetwork(0);
+        }
+        connectAll(server, clientCount);
+        GameClient stalled = spectators > 0 ? clients[clientCount - 1] : null;
+
+        Random rand = new Random(SEED);
+        long serverNanos = 0, maxServerNanos = 0;
+        int mismatches = 0, tick;
+        boolean caughtUp = false;
+        for (tick = 0; tick < ticks && engine.isRunning(); tick++) {
+            if (players > 0) {
+                GameEngine commander = clients[tick % players].getEngine();
+                if (!engine.isSpawning() && engine.getMonsters().isEmpty()) {
+                    commander.sendNextWave();
+                }
+                if (tick % TOWER_INTERVAL == 0) {
+                    commander.placeTower(
+                                new Point(rand.nextInt(GamePanel.WIDTH),
+                                        rand.nextInt(GamePanel.HEIGHT)),
+                                Tower.BASIC_TOWER);
+                }
+            }
+            server.pollNetwork(1);
+
+            long start = System.nanoTime();
+            server.tick();
+            long elapsed = System.nanoTime() - start;
+            serverNanos += elapsed;
+            maxServerNanos = Math.max(maxServerNanos, elapsed);
+
+            boolean stalling = stalled != null && tick >= STALL_START
+                                        && server.getFramesSkipped() == 0;
+            if (stalling) {
+                caughtUp = false;
+            }
+            waitForFrames(server, clients, caughtUp ? null : stalled,
+                                                                stalling);
+            if (!stalling && !caughtUp && stalled != null) {
+                caughtUp = stalled.isSynced()
+                        && stalled.getEngine().getTick() == engine.getTick();
+            }
+            for (GameClient client : clients) {
+                if (client != stalled || caughtUp) {
+                    if (!matches(engine, client.getEngine())) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+
+        long frames = Math.max(1, server.getFramesSent());
+        System.out.printf("%d players, %d spectators, %d ticks, wave %d, "
+                            + "%d towers, %d monsters%n", players, spectators,
+                            tick, engine.getWaveNumber(),
+                            engine.getTowers().size(),
+                            engine.getMonsters().size());
+        System.out.printf("server tick and broadcast: %.3f ms average, "
+                            + "%.3f ms max%n", serverNanos / 1e6 / frames,
+                            maxServerNanos / 1e6);
+        System.out.printf("%d frames, %d keyframes, %.1f bytes encoded and "
+                            + "%.1f bytes written per client per frame%n",
+                            server.getFramesSent(),
+                            server.getKeyframesSent(),
+                            (double) server.getBytesEncoded() / frames,
+                            (double) server.getBytesWritten()
+                                                / frames / clientCount);
+        System.out.printf("%d frames skipped by slow clients, stalled "
+                            + "spectator %s%n", server.getFramesSkipped(),
+                            stalled == null ? "not run"
+                            : caughtUp ? "caught up" : "did not catch up");
+        System.out.println(mismatches == 0 ? "every copy matched"
+                            : mismatches + " copies did not match");
+        for (GameClient client : clients) {
+            client.close();
+        }
+        server.close();
+        boolean stallRan = stalled != null && tick > STALL_START;
+        if (mismatches != 0 || (stallRan
+                    && (server.getFramesSkipped() == 0 || !caughtUp))) {
+            System.exit(1);
+        }
+    }
+
+    private static void connectAll(GameServer server, int count)
+                                                        throws IOException {
+        while (server.getConnectionCount() < count) {
+            server.pollNetwork(10);
+        }
+    }
+
+    /**
+    * Polls every client until each has the latest tick. A lagging client is
+    * not polled at all while it is stalled, and otherwise is only waited for
+    * while it is still receiving data, since it may be skipping frames
+    */
+    private static void waitForFrames(GameServer server, GameClient[] clients,
+                                    GameClient lagging, boolean stalled)
+                                                        throws IOException {
+        long deadline = System.nanoTime() + FRAME_TIMEOUT_NANOS;
+        long tick = server.getEngine().getTick();
+        boolean waiting = true;
+        while (waiting) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("clients did not receive tick " + tick);
+            }
+            server.pollNetwork(0);
+            waiting = false;
+            for (GameClient client : clients) {
+                if (client == lagging && stalled) {
+                    continue;
+                }
+                long bytesRead = client.getBytesRead();
+                if (!client.poll()) {
+                    throw new IOException("a client was disconnected");
+                }
+                if ((!client.isSynced() || client.getEngine().getTick() < tick)
+                        && (client != lagging
+                                || client.getBytesRead() != bytesRead)) {
+                    waiting = true;
+                }
+            }
+        }
+    }
+
+    private static boolean matches(GameEngine server, GameEngine copy) {
+        if (server.getTick() != copy.getTick()
+                || server.getScore() != copy.getScore()
+                || server.getMoney() != copy.getMoney()
+                || server.getWaveNumber() != copy.getWaveNumber()
+                || server.isRunning() != copy.isRunning()
+                || server.getTowers().size() != copy.getTowers().size()) {
+            return false;
+        }
+        MonsterStore monsters = server.getMonsters();
+        MonsterStore copied = copy.getMonsters();
+        if (monsters.size() != copied.size()) {
+            return false;
+        }
+        for (int i = 0; i < monsters.size(); i++) {
+            if (monsters.getX(i) != copied.getX(i)
+                    || monsters.getY(i) != copied.getY(i)
+                    || monsters.getType(i) != copied.getType(i)
+                    || monsters.isBeingAttacked(i)
+                                            != copied.isBeingAttacked(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
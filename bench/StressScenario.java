@@ -0,0 +1,129 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * StressScenario builds games far larger than the real waves ever get: a
+ * long path that winds back and forth across the whole map, a regular grid
+ * of Towers and the same number of Monsters of every registered type spread
+ * along the path. Everything is built from a fixed seed so that runs can be
+ * compared
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class StressScenario {
+
+    public static final long SEED = 42;
+    public static final int MARGIN = 20;
+
+    private GameEngine engine;
+    private int monstersPerType, towerSpacing, pathRows;
+
+    /**
+    * Builds a scenario. Monsters start spread over the first three quarters
+    * of the path so that few of them reach the end during a short run
+    *
+    * @param monstersPerType The number of Monsters of each type
+    * @param towerSpacing The distance between neighbouring Towers in the
+    * grid, or 0 for no Towers
+    * @param pathRows The number of times the path crosses the map
+    */
+    public StressScenario(int monstersPerType, int towerSpacing,
+                                                            int pathRows) {
+        this.monstersPerType = monstersPerType;
+        this.towerSpacing = towerSpacing;
+        this.pathRows = pathRows;
+        engine = new GameEngine(SEED);
+        engine.setPath(buildPath(pathRows));
+        Random rand = new Random(SEED);
+
+        if (towerSpacing > 0) {
+            for (int y = MARGIN; y < GamePanel.HEIGHT - MARGIN;
+                                                        y += towerSpacing) {
+                for (int x = MARGIN; x < GamePanel.WIDTH - MARGIN;
+                                                        x += towerSpacing) {
+                    engine.addTower(GameEngine.createTower(
+                                    new Point(x, y), Tower.BASIC_TOWER));
+                }
+            }
+        }
+
+        MonsterStore monsters = engine.getMonsters();
+        CompiledPath path = engine.getCompiledPath();
+        int maxStart = path.getLength() * 3 / 4;
+        for (int type = 0; type < MonsterType.count(); type++) {
+            MonsterType monsterType = MonsterType.get(type);
+            for (int i = 0; i < monstersPerType; i++) {
+                monsters.add(monsterType, 0, 0);
+                monsters.placeAt(monsters.size() - 1, rand.nextInt(maxStart),
+                                                                    path);
+            }
+        }
+        monsters.sort();
+    }
+
+    /**
+    * Builds a path that runs from right to left and back again across the
+    * map, moving down between crossings
+    *
+    * @param rows The number of times the path crosses the map
+    * @return ArrayList<Line> The Lines of the path
+    */
+    public static ArrayList<Line> buildPath(int rows) {
+        ArrayList<Line> path = new ArrayList<Line>(2 * rows);
+        int left = MARGIN;
+        int right = GamePanel.WIDTH - MARGIN;
+        int gap = (GamePanel.HEIGHT - 2 * MARGIN) / Math.max(1, rows - 1);
+        int y = MARGIN;
+        for (int row = 0; row < rows; row++) {
+            if (row % 2 == 0) {
+                path.add(new Line(right, y, left, y));
+            } else {
+                path.add(new Line(left, y, right, y));
+            }
+            if (row < rows - 1) {
+                Point end = path.get(path.size() - 1).getEnd();
+                path.add(new Line(end, new Point((int) end.getX(), y + gap)));
+                y += gap;
+            }
+        }
+        return path;
+    }
+
+    /**
+    * Gets the game built for the scenario
+    *
+    * @return engine The GameEngine holding the path, Towers and Monsters
+    */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+    * Gets the number of Monsters of each type the scenario was built with
+    *
+    * @return monstersPerType The number of Monsters of each type
+    */
+    public int getMonstersPerType() {
+        return monstersPerType;
+    }
+
+    /**
+    * Gets the distance between neighbouring Towers
+    *
+    * @return towerSpacing The spacing of the tower grid
+    */
+    public int getTowerSpacing() {
+        return towerSpacing;
+    }
+
+    /**
+    * Gets the number of times the path crosses the map
+    *
+    * @return pathRows The number of crossings
+    */
+    public int getPathRows() {
+        return pathRows;
+    }
+}
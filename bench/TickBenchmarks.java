@@ -0,0 +1,234 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * TickBenchmarks measures each phase of a game tick as the number of
+ * Monsters and Towers grows. These numbers are the baseline that changes to
+ * the game loop are measured against
+ *
+ * Usage: java TickBenchmarks [monsterCounts] [towerCounts]
+ * where each argument is a comma separated list such as "10,1000,100000"
+ *
+ * Usage: java TickBenchmarks --snapshot file
+ * measures a game saved with GameSnapshot instead of generated games
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class TickBenchmarks {
+
+    public static final String MONSTER_COUNTS = "10,100,1000,10000,100000";
+    public static final String TOWER_COUNTS = "1,10,100,1000,10000";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--snapshot")) {
+            BenchmarkHarness harness = new BenchmarkHarness(new int[0],
+                                                                new int[0]);
+            addAll(harness);
+            harness.runAll(new BenchmarkState(
+                                    GameSnapshot.load(new File(args[1]))));
+            return;
+        }
+        int[] monsters = BenchmarkHarness.parseCounts(
+                                args.length > 0 ? args[0] : MONSTER_COUNTS);
+        int[] towers = BenchmarkHarness.parseCounts(
+                                args.length > 1 ? args[1] : TOWER_COUNTS);
+        BenchmarkHarness harness = new BenchmarkHarness(monsters, towers);
+        addAll(harness);
+        harness.runAll();
+    }
+
+    private static void addAll(BenchmarkHarness harness) {
+        harness.add(new FireTowersBenchmark());
+        harness.add(new ParallelFireTowersBenchmark());
+        harness.add(new CheckForDeathBenchmark());
+        harness.add(new MoveAllBenchmark());
+        harness.add(new OrderMonstersBenchmark());
+        harness.add(new SortShuffledBenchmark());
+        harness.add(new CanPlaceOnMapBenchmark());
+    }
+
+    private static class FireTowersBenchmark extends Benchmark {
+
+        private GameEngine engine;
+
+        public FireTowersBenchmark() {
+            super("fireTowers", 10);
+        }
+
+        public void setup(BenchmarkState state) {
+            engine = state.getEngine();
+        }
+
+        public int run() {
+            engine.fireTowers();
+            return engine.getMonsters().size();
+        }
+    }
+
+    private static class ParallelFireTowersBenchmark extends Benchmark {
+
+        private GameEngine engine;
+
+        public ParallelFireTowersBenchmark() {
+            super("fireTowersPar", 10);
+        }
+
+        public void setup(BenchmarkState state) {
+            if (engine != state.getEngine()) {
+                if (engine != null) {
+                    engine.setFiringThreads(1);
+                }
+                engine = state.getEngine();
+                engine.setFiringThreads(
+                                Runtime.getRuntime().availableProcessors());
+            }
+        }
+
+        public int run() {
+            engine.fireTowers();
+            return engine.getMonsters().size();
+        }
+    }
+
+    private static class CheckForDeathBenchmark extends Benchmark {
+
+        private BenchmarkState lastState;
+        private MonsterStore original = new MonsterStore();
+        private GameEngine engine;
+
+        public CheckForDeathBenchmark() {
+            super("checkForDeath", 1);
+        }
+
+        /**
+        * Puts back every Monster removed by the previous iteration, with
+        * every fourth Monster dead so that there is something to remove
+        */
+        public void setup(BenchmarkState state) {
+            engine = state.getEngine();
+            if (state != lastState) {
+                lastState = state;
+                original.copyFrom(engine.getMonsters());
+                for (int i = 0; i < original.size(); i += 4) {
+                    original.drainHealth(i);
+                }
+            }
+            engine.getMonsters().copyFrom(original);
+        }
+
+        public int run() {
+            return engine.checkForDeath()[1];
+        }
+    }
+
+    private static class MoveAllBenchmark extends Benchmark {
+
+        private BenchmarkState lastState;
+        private MonsterStore original = new MonsterStore();
+        private GameEngine engine;
+
+        /**
+        * Kept to the moves the Monsters start short of the end by, so that
+        * none of them reaches the end of the path
+        */
+        public MoveAllBenchmark() {
+            super("moveAll", BenchmarkState.END_MARGIN_TICKS);
+        }
+
+        /**
+        * Puts every Monster back where it started, since the previous
+        * iteration moved them along
+        */
+        public void setup(BenchmarkState state) {
+            engine = state.getEngine();
+            if (state != lastState) {
+                lastState = state;
+                original.copyFrom(engine.getMonsters());
+            }
+            engine.getMonsters().copyFrom(original);
+        }
+
+        public int run() {
+            engine.moveAll();
+            return engine.getMonsters().size();
+        }
+    }
+
+    private static class OrderMonstersBenchmark extends Benchmark {
+
+        private GameEngine engine;
+
+        public OrderMonstersBenchmark() {
+            super("orderMonsters", 1);
+        }
+
+        /**
+        * Moves the Monsters one tick so that faster Monsters have passed
+        * slower ones, as they do between two calls in the game
+        */
+        public void setup(BenchmarkState state) {
+            engine = state.getEngine();
+            engine.moveAll();
+        }
+
+        public int run() {
+            engine.orderMonsters();
+            return engine.getMonsters().size();
+        }
+    }
+
+    private static class SortShuffledBenchmark extends Benchmark {
+
+        private MonsterStore monsters;
+        private Random rand = new Random(BenchmarkState.SEED);
+
+        public SortShuffledBenchmark() {
+            super("sortShuffled", 1);
+        }
+
+        public void setup(BenchmarkState state) {
+            monsters = state.getEngine().getMonsters();
+            for (int i = monsters.size() - 1; i > 0; i--) {
+                monsters.swap(i, rand.nextInt(i + 1));
+            }
+        }
+
+        public int run() {
+            monsters.sort();
+            return monsters.size();
+        }
+    }
+
+    private static class CanPlaceOnMapBenchmark extends Benchmark {
+
+        public static final int CANDIDATES = 1000;
+
+        private PlacementGrid grid;
+        private Tower[] candidates;
+        private int next;
+
+        public CanPlaceOnMapBenchmark() {
+            super("canPlaceOnMap", CANDIDATES);
+        }
+
+        public void setup(BenchmarkState state) {
+            grid = state.getEngine().getPlacementGrid();
+            if (candidates == null) {
+                Random rand = new Random(BenchmarkState.SEED);
+                candidates = new Tower[CANDIDATES];
+                for (int i = 0; i < CANDIDATES; i++) {
+                    candidates[i] = new BasicTower(
+                                    rand.nextInt(GamePanel.WIDTH - 24),
+                                    rand.nextInt(GamePanel.HEIGHT - 24));
+                }
+            }
+            next = 0;
+        }
+
+        public int run() {
+            return candidates[next++].canPlaceOnMap(grid) ? 1 : 0;
+        }
+    }
+}
@@ -30,6 +30,15 @@ public class AdvancedTower extends Tower {
         super(x, y, 4, 30, 125);
     }
 
+    /**
+    * Gets the type of this Tower
+    *
+    * @return int Tower.ADVANCED_TOWER
+    */
+    public int getType() {
+        return ADVANCED_TOWER;
+    }
+
     /**
     * Draws the Tower's radius to the GUI
     *
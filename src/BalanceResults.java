@@ -0,0 +1,132 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * BalanceResults gathers the outcome of many headless games: how many were
+ * won, how many Monsters leaked in each wave and the final score of every
+ * game. Results from separate batches of games can be merged
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class BalanceResults {
+
+    public static final int SCORE_BUCKET = 25;
+
+    private int games, wins;
+    private long[] leaksPerWave;
+    private int[] scores;
+
+    /**
+    * Constructs empty results
+    */
+    public BalanceResults() {
+        leaksPerWave = new long[GameEngine.MAX_WAVES + 2];
+        scores = new int[16];
+    }
+
+    /**
+    * Records the outcome of one game
+    *
+    * @param won Whether or not the game was won
+    * @param score The final score of the game
+    * @param leaks The number of Monsters leaked in each wave, indexed by wave
+    * number
+    */
+    public void addGame(boolean won, int score, int[] leaks) {
+        if (games == scores.length) {
+            scores = Arrays.copyOf(scores, games * 2);
+        }
+        scores[games++] = score;
+        if (won) {
+            wins++;
+        }
+        for (int i = 0; i < leaks.length && i < leaksPerWave.length; i++) {
+            leaksPerWave[i] += leaks[i];
+        }
+    }
+
+    /**
+    * Adds another set of results to these results
+    *
+    * @param other The results to add
+    */
+    public void merge(BalanceResults other) {
+        if (games + other.games > scores.length) {
+            scores = Arrays.copyOf(scores, games + other.games);
+        }
+        System.arraycopy(other.scores, 0, scores, games, other.games);
+        games += other.games;
+        wins += other.wins;
+        for (int i = 0; i < leaksPerWave.length; i++) {
+            leaksPerWave[i] += other.leaksPerWave[i];
+        }
+    }
+
+    /**
+    * Gets the number of games recorded
+    *
+    * @return games The number of games played
+    */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+    * Gets the number of games won
+    *
+    * @return wins The number of games won
+    */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+    * Prints the win rate, the average leaks per wave and the distribution of
+    * final scores
+    *
+    * @param out The stream to print to
+    */
+    public void print(PrintStream out) {
+        if (games == 0) {
+            out.println("No games played");
+            return;
+        }
+        out.printf("Games: %d  Wins: %d  Win rate: %.1f%%%n", games, wins,
+                                                    100.0 * wins / games);
+
+        out.println();
+        out.println("Average leaks per wave:");
+        for (int wave = 1; wave < leaksPerWave.length; wave++) {
+            out.printf("  wave %2d: %8.3f%n", wave,
+                                        (double) leaksPerWave[wave] / games);
+        }
+
+        int[] sorted = Arrays.copyOf(scores, games);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (int score : sorted) {
+            total += score;
+        }
+        out.println();
+        out.printf("Final score: mean %.1f  min %d  p10 %d  median %d  "
+                        + "p90 %d  max %d%n", (double) total / games,
+                        sorted[0], percentile(sorted, 10),
+                        percentile(sorted, 50), percentile(sorted, 90),
+                        sorted[games - 1]);
+        int buckets = sorted[games - 1] / SCORE_BUCKET + 1;
+        int[] histogram = new int[buckets];
+        for (int score : sorted) {
+            histogram[score / SCORE_BUCKET]++;
+        }
+        for (int i = 0; i < buckets; i++) {
+            out.printf("  %3d-%3d: %7d%n", i * SCORE_BUCKET,
+                            (i + 1) * SCORE_BUCKET - 1, histogram[i]);
+        }
+    }
+
+    private static int percentile(int[] sorted, int percent) {
+        int index = (int) ((long) percent * (sorted.length - 1) / 100);
+        return sorted[index];
+    }
+}
@@ -0,0 +1,165 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * BalanceRunner plays thousands of complete games headless from a scripted
+ * TowerPlan, each from its own seed, spread over every core with fork/join.
+ * It reports the win rate, the leaks in each wave and the distribution of
+ * final scores so that Tower and Monster constants can be tuned without
+ * playing by hand
+ *
+ * Usage: java BalanceRunner planFile [games] [firstSeed] [threads]
+ *                           [waveFile]
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class BalanceRunner {
+
+    public static final int DEFAULT_GAMES = 1000;
+    public static final int GAMES_PER_TASK = 8;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java BalanceRunner planFile [games] "
+                                    + "[firstSeed] [threads] [waveFile]");
+            System.exit(1);
+        }
+        TowerPlan plan = TowerPlan.load(new File(args[0]));
+        int games = args.length > 1 ? Integer.parseInt(args[1])
+                                                        : DEFAULT_GAMES;
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                                : Runtime.getRuntime().availableProcessors();
+        WaveSchedule schedule = args.length > 4
+                                ? WaveSchedule.load(new File(args[4]))
+                                : WaveSchedule.createDefault();
+
+        long start = System.nanoTime();
+        BalanceResults results = run(plan, schedule, games, firstSeed,
+                                                                threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        results.print(System.out);
+        System.out.printf("%nPlayed %d games on %d threads in %.2f s "
+                        + "(%.1f games/s)%n", games, threads, seconds,
+                        games / seconds);
+    }
+
+    /**
+    * Plays a number of games with consecutive seeds on a fork/join pool
+    *
+    * @param plan The Tower placements every game follows
+    * @param schedule The Monsters each wave releases
+    * @param games The number of games to play
+    * @param firstSeed The seed of the first game; game i uses firstSeed + i
+    * @param threads The number of worker threads
+    * @return BalanceResults The combined results of every game
+    */
+    public static BalanceResults run(TowerPlan plan, WaveSchedule schedule,
+                                int games, long firstSeed, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new GameBatch(plan, schedule, firstSeed, 0,
+                                                                    games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+    * Plays one complete game, sending each wave as soon as the previous one
+    * has cleared the map and placing the planned Towers before each wave.
+    * Placements are made in order; one the player cannot afford yet holds
+    * back the rest of the plan until a later wave, and one on an invalid
+    * location is skipped
+    *
+    * @param plan The Tower placements to make
+    * @param schedule The Monsters each wave releases
+    * @param seed The seed of the game
+    * @param results The results to record the game in
+    */
+    public static void playGame(TowerPlan plan, WaveSchedule schedule,
+                                    long seed, BalanceResults results) {
+        GameEngine engine = new GameEngine(seed, schedule);
+        int[] leaks = new int[GameEngine.MAX_WAVES + 2];
+        int nextPlacement = 0;
+        while (engine.isRunning()) {
+            int wave = engine.getWaveNumber() + 1;
+            while (nextPlacement < plan.size()
+                                && plan.getWave(nextPlacement) <= wave) {
+                Point location = new Point(plan.getX(nextPlacement),
+                                                plan.getY(nextPlacement));
+                int type = plan.getType(nextPlacement);
+                if (engine.getMoney()
+                        < GameEngine.createTower(location, type).getCost()) {
+                    break;
+                }
+                engine.placeTower(location, type);
+                nextPlacement++;
+            }
+            int leaksBefore = engine.getLeakCount();
+            engine.sendNextWave();
+            while (engine.isRunning() && (engine.isSpawning()
+                                        || !engine.getMonsters().isEmpty())) {
+                engine.step();
+            }
+            int index = Math.min(engine.getWaveNumber(), leaks.length - 1);
+            leaks[index] += engine.getLeakCount() - leaksBefore;
+        }
+        results.addGame(engine.isWon(), engine.getScore(), leaks);
+    }
+
+    private static class GameBatch extends RecursiveTask<BalanceResults> {
+
+        private TowerPlan plan;
+        private WaveSchedule schedule;
+        private long firstSeed;
+        private int from, to;
+
+        /**
+        * Constructs a task playing games from up to but not including to
+        *
+        * @param plan The Tower placements every game follows
+        * @param schedule The Monsters each wave releases
+        * @param firstSeed The seed of game 0
+        * @param from The first game to play
+        * @param to One past the last game to play
+        */
+        public GameBatch(TowerPlan plan, WaveSchedule schedule,
+                                        long firstSeed, int from, int to) {
+            this.plan = plan;
+            this.schedule = schedule;
+            this.firstSeed = firstSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+        * Plays the games directly if there are few of them, otherwise splits
+        * them in half and merges the results
+        *
+        * @return BalanceResults The results of the games in this batch
+        */
+        protected BalanceResults compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                BalanceResults results = new BalanceResults();
+                for (int i = from; i < to; i++) {
+                    playGame(plan, schedule, firstSeed + i, results);
+                }
+                return results;
+            }
+            int middle = (from + to) >>> 1;
+            GameBatch left = new GameBatch(plan, schedule, firstSeed, from,
+                                                                    middle);
+            left.fork();
+            BalanceResults results = new GameBatch(plan, schedule, firstSeed,
+                                                    middle, to).compute();
+            results.merge(left.join());
+            return results;
+        }
+    }
+}
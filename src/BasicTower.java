@@ -30,6 +30,15 @@ public class BasicTower extends Tower {
         super(x, y);
     }
 
+    /**
+    * Gets the type of this Tower
+    *
+    * @return int Tower.BASIC_TOWER
+    */
+    public int getType() {
+        return BASIC_TOWER;
+    }
+
     /**
     * Draws the Tower's radius to the GUI
     *
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+
+/**
+ * A CompiledPath is the Tower Defense path turned into a function of one
+ * number, the distance travelled along it. The start, direction and starting
+ * distance of every Line are worked out once, so a Monster only has to
+ * remember how far it has gone, and finding its location is a multiply and
+ * an add
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class CompiledPath {
+
+    public static final int STEP = 3;
+
+    private int segments, length;
+    private int[] startX, startY, startDistance;
+    private double[] directionX, directionY;
+
+    /**
+    * Compiles a path made of Lines joined end to start
+    *
+    * @param path The ArrayList of Lines that defines the Tower Defense path
+    */
+    public CompiledPath(ArrayList<Line> path) {
+        segments = path.size();
+        startX = new int[segments];
+        startY = new int[segments];
+        startDistance = new int[segments + 1];
+        directionX = new double[segments];
+        directionY = new double[segments];
+
+        int distance = 0;
+        for (int i = 0; i < segments; i++) {
+            Line line = path.get(i);
+            int x1 = (int) line.getStart().getX();
+            int y1 = (int) line.getStart().getY();
+            int dx = (int) line.getEnd().getX() - x1;
+            int dy = (int) line.getEnd().getY() - y1;
+            int segmentLength = (int) Math.round(Math.sqrt(dx * dx + dy * dy));
+            startX[i] = x1;
+            startY[i] = y1;
+            startDistance[i] = distance;
+            if (segmentLength > 0) {
+                directionX[i] = (double) dx / segmentLength;
+                directionY[i] = (double) dy / segmentLength;
+            }
+            distance += segmentLength;
+        }
+        startDistance[segments] = distance;
+        length = distance;
+    }
+
+    /**
+    * Gets the total length of the path
+    *
+    * @return length The distance from the start to the end of the path
+    */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+    * Gets the number of Lines the path was compiled from
+    *
+    * @return segments The number of segments in the path
+    */
+    public int getSegmentCount() {
+        return segments;
+    }
+
+    /**
+    * Gets the distance along the path at which a segment starts
+    *
+    * @param segment The index of the segment
+    * @return int The distance from the start of the path to the segment
+    */
+    public int getStartDistance(int segment) {
+        return startDistance[segment];
+    }
+
+    /**
+    * Finds the segment holding a distance along the path, searching forward
+    * from a segment known to start at or before it. Monsters only ever move
+    * forward, so passing the segment they were last on makes this constant
+    * time
+    *
+    * @param distance The distance along the path
+    * @param hint A segment that starts at or before the distance
+    * @return int The segment holding the distance, or the last segment if
+    * the distance is past the end of the path
+    */
+    public int segmentAt(int distance, int hint) {
+        int segment = hint;
+        while (segment < segments - 1
+                                && distance >= startDistance[segment + 1]) {
+            segment++;
+        }
+        return segment;
+    }
+
+    /**
+    * Gets the x coordinate of a distance along the path
+    *
+    * @param segment The segment holding the distance
+    * @param distance The distance along the path
+    * @return int The x coordinate of that point on the path
+    */
+    public int getX(int segment, int distance) {
+        return startX[segment] + (int) Math.round(directionX[segment]
+                                    * (distance - startDistance[segment]));
+    }
+
+    /**
+    * Gets the y coordinate of a distance along the path
+    *
+    * @param segment The segment holding the distance
+    * @param distance The distance along the path
+    * @return int The y coordinate of that point on the path
+    */
+    public int getY(int segment, int distance) {
+        return startY[segment] + (int) Math.round(directionY[segment]
+                                    * (distance - startDistance[segment]));
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * A GameBot plays one game run by a GameFarm. It is called on one of the
+ * farm's worker threads before every tick of its session, and may place
+ * Towers and send waves on the GameEngine it is given
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public interface GameBot {
+
+    /**
+    * Makes the bot's moves before a tick
+    *
+    * @param engine The game being played
+    */
+    void act(GameEngine engine);
+}
@@ -0,0 +1,369 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * GameClient connects to a GameServer and keeps a local GameEngine that is a
+ * copy of the server's game, so the game can be shown by a GamePanel as if
+ * it were played locally. Placing a Tower or sending a wave on the copy
+ * sends the command to the server. The copy is only brought up to date when
+ * poll is called, so a GUI can poll once per frame on its own thread. A
+ * spectator only watches: its commands are ignored rather than sent
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameClient {
+
+    public static final int INITIAL_BUFFER_SIZE = 1 << 16;
+    public static final int MAX_FRAME_SIZE = 1 << 26;
+
+    private SocketChannel channel;
+    private GameEngine engine;
+    private ByteBuffer in, out;
+    private boolean synced, connected, spectator;
+    private long framesRead, bytesRead;
+    private int[] slotTypes, slotDistances;
+
+    /**
+    * Connects to a server and creates the local copy of its game. The copy
+    * is empty until the first frame has been polled
+    *
+    * @param host The name or address of the server
+    * @param port The port the server listens on
+    * @throws IOException If the server cannot be reached
+    */
+    public GameClient(String host, int port) throws IOException {
+        this(host, port, false);
+    }
+
+    /**
+    * Connects to a server, either to play or only to watch, and creates the
+    * local copy of its game. The copy is empty until the first frame has
+    * been polled
+    *
+    * @param host The name or address of the server
+    * @param port The port the server listens on
+    * @param spectator Whether or not the client only watches the game
+    * @throws IOException If the server cannot be reached
+    */
+    public GameClient(String host, int port, boolean spectator)
+                                                        throws IOException {
+        this(host, port, spectator, 0);
+    }
+
+    /**
+    * Connects to a server with a given socket receive buffer, either to play
+    * or only to watch, and creates the local copy of its game
+    *
+    * @param host The name or address of the server
+    * @param port The port the server listens on
+    * @param spectator Whether or not the client only watches the game
+    * @param receiveBufferSize The size of the socket receive buffer in
+    * bytes, or 0 for the system default
+    * @throws IOException If the server cannot be reached
+    */
+    public GameClient(String host, int port, boolean spectator,
+                            int receiveBufferSize) throws IOException {
+        channel = SocketChannel.open();
+        if (receiveBufferSize > 0) {
+            channel.socket().setReceiveBufferSize(receiveBufferSize);
+        }
+        channel.connect(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+        engine = new GameEngine(0);
+        engine.setServerConnection(this);
+        in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        out = ByteBuffer.allocate(NetProtocol.MAX_COMMAND_SIZE);
+        slotTypes = new int[64];
+        slotDistances = new int[64];
+        synced = false;
+        connected = true;
+        this.spectator = spectator;
+        if (spectator) {
+            int start = NetProtocol.startMessage(out, NetProtocol.SPECTATE);
+            NetProtocol.finishMessage(out, start);
+            send();
+        }
+    }
+
+    /**
+    * Reads whatever the server has sent and applies every whole frame to
+    * the local copy of the game. Never waits for data to arrive
+    *
+    * @return boolean Whether or not the client is still connected
+    */
+    public boolean poll() {
+        if (!connected) {
+            return false;
+        }
+        try {
+            int read;
+            while ((read = channel.read(in)) > 0) {
+                bytesRead += read;
+                readFrames();
+                if (!in.hasRemaining()) {
+                    in = grow(in);
+                }
+            }
+            if (read < 0) {
+                close();
+            }
+        } catch (IOException e) {
+            System.err.println("Lost connection to server: "
+                                                        + e.getMessage());
+            close();
+        }
+        return connected;
+    }
+
+    /**
+    * Asks the server to place a Tower
+    *
+    * @param type The int representation of the Tower type
+    * @param x The x coordinate of the Tower
+    * @param y The y coordinate of the Tower
+    */
+    public void sendPlaceTower(int type, int x, int y) {
+        if (spectator) {
+            return;
+        }
+        int start = NetProtocol.startMessage(out, NetProtocol.PLACE_TOWER);
+        out.put((byte) type);
+        NetProtocol.putSignedVarInt(out, x);
+        NetProtocol.putSignedVarInt(out, y);
+        NetProtocol.finishMessage(out, start);
+        send();
+    }
+
+    /**
+    * Asks the server to send the next wave
+    */
+    public void sendWave() {
+        if (spectator) {
+            return;
+        }
+        int start = NetProtocol.startMessage(out, NetProtocol.SEND_WAVE);
+        NetProtocol.finishMessage(out, start);
+        send();
+    }
+
+    /**
+    * Closes the connection. The local copy keeps its last state
+    */
+    public void close() {
+        connected = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close connection: "
+                                                        + e.getMessage());
+        }
+    }
+
+    /**
+    * Gets the local copy of the server's game
+    *
+    * @return engine The GameEngine copying the server's game
+    */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+    * Tells whether a full frame has arrived, so the copy shows the game
+    *
+    * @return synced Whether or not the copy has been filled in
+    */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+    * Tells whether the client only watches the game
+    *
+    * @return spectator Whether or not commands are ignored
+    */
+    public boolean isSpectator() {
+        return spectator;
+    }
+
+    /**
+    * Tells whether the client is still connected to the server
+    *
+    * @return connected Whether or not the connection is open
+    */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+    * Gets the number of frames applied to the copy
+    *
+    * @return framesRead The number of frames read from the server
+    */
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    /**
+    * Gets the number of bytes the server has sent
+    *
+    * @return bytesRead The number of bytes read from the server
+    */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private void readFrames() throws IOException {
+        in.flip();
+        int length;
+        while ((length = NetProtocol.nextMessageLength(in, MAX_FRAME_SIZE))
+                                                                    >= 0) {
+            int end = in.position() + 4 + length;
+            ByteBuffer message = in.duplicate();
+            message.position(in.position() + 4);
+            message.limit(end);
+            in.position(end);
+            if (message.get() != NetProtocol.FRAME) {
+                throw new IOException("unexpected message from server");
+            }
+            try {
+                readFrame(message);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("frame ended early");
+            }
+            framesRead++;
+        }
+        in.compact();
+    }
+
+    private void readFrame(ByteBuffer frame) throws IOException {
+        long tick = frame.getLong();
+        int bits = frame.get();
+        boolean full = (bits & StateEncoder.FULL) != 0;
+        if (!full && !synced) {
+            throw new IOException("delta frame before the first full frame");
+        }
+        int score = NetProtocol.getVarInt(frame);
+        int money = NetProtocol.getVarInt(frame);
+        int waveNumber = NetProtocol.getVarInt(frame);
+
+        if (full) {
+            int lines = NetProtocol.getVarInt(frame);
+            ArrayList<Line> path = new ArrayList<Line>(
+                                        Math.min(lines, frame.remaining()));
+            for (int i = 0; i < lines; i++) {
+                path.add(new Line(NetProtocol.getSignedVarInt(frame),
+                                        NetProtocol.getSignedVarInt(frame),
+                                        NetProtocol.getSignedVarInt(frame),
+                                        NetProtocol.getSignedVarInt(frame)));
+            }
+            if (lines == 0) {
+                throw new IOException("frame has an empty path");
+            }
+            if (!samePath(path, engine.getPath())) {
+                engine.setPath(path);
+            }
+        }
+
+        int firstTower = NetProtocol.getVarInt(frame);
+        int towerCount = NetProtocol.getVarInt(frame);
+        if (firstTower > engine.getTowers().size()) {
+            throw new IOException("missed Towers before " + firstTower);
+        }
+        for (int i = firstTower; i < firstTower + towerCount; i++) {
+            int type = frame.get();
+            int x = NetProtocol.getSignedVarInt(frame);
+            int y = NetProtocol.getSignedVarInt(frame);
+            if (i == engine.getTowers().size()) {
+                Tower tower = GameEngine.createTower(new Point(x, y), type);
+                if (tower == null) {
+                    throw new IOException("unknown Tower type " + type);
+                }
+                engine.addTower(tower);
+            }
+        }
+
+        readMonsters(frame, full);
+        engine.applyServerState(tick, score, money, waveNumber,
+                                    (bits & StateEncoder.STILL_PLAYING) != 0,
+                                    (bits & StateEncoder.SPAWNING) != 0);
+        synced = true;
+    }
+
+    private void readMonsters(ByteBuffer frame, boolean full)
+                                                        throws IOException {
+        MonsterStore monsters = engine.getMonsters();
+        CompiledPath path = engine.getCompiledPath();
+        int count = NetProtocol.getVarInt(frame);
+        monsters.clear();
+        for (int i = 0; i < count; i++) {
+            int slot = NetProtocol.getVarInt(frame);
+            int monsterBits = frame.get();
+            if (slot >= slotTypes.length) {
+                int length = Math.max(slot + 1, slotTypes.length * 2);
+                slotTypes = Arrays.copyOf(slotTypes, length);
+                slotDistances = Arrays.copyOf(slotDistances, length);
+            }
+            if ((monsterBits & StateEncoder.NEW_MONSTER) != 0) {
+                slotTypes[slot] = frame.get() & 0xFF;
+                slotDistances[slot] = NetProtocol.getVarInt(frame);
+            } else if (full) {
+                throw new IOException("full frame has an old Monster");
+            } else {
+                slotDistances[slot] += NetProtocol.getSignedVarInt(frame);
+            }
+            int distance = slotDistances[slot];
+            if (slotTypes[slot] >= MonsterType.count() || distance < 0
+                                    || distance > path.getLength()) {
+                throw new IOException("bad Monster in slot " + slot);
+            }
+            monsters.add(MonsterType.get(slotTypes[slot]), 0, 0);
+            monsters.placeAt(i, distance, path);
+            if ((monsterBits & StateEncoder.BEING_ATTACKED) != 0) {
+                monsters.setBeingAttacked(i);
+            }
+        }
+    }
+
+    private void send() {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        } catch (IOException e) {
+            System.err.println("Lost connection to server: "
+                                                        + e.getMessage());
+            close();
+        }
+        out.clear();
+    }
+
+    private static boolean samePath(ArrayList<Line> a, ArrayList<Line> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getStart().equals(b.get(i).getStart())
+                        || !a.get(i).getEnd().equals(b.get(i).getEnd())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+}
@@ -0,0 +1,842 @@
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The GameEngine holds all of the game logic for the Tower Defense Game
+ * without depending on Swing. It owns the path, the Towers, the Monsters and
+ * the score and money of the player, and it advances the game one fixed
+ * timestep at a time so that it can be driven by a GUI timer or run headless
+ * as fast as the machine allows
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameEngine {
+
+    public static final int TICK_MILLIS = 30;
+    public static final int MAX_WAVES = 50;
+    public static final int STARTING_SCORE = 250;
+    public static final int STARTING_MONEY = 150;
+
+    private ArrayList<Line> path;
+    private CompiledPath compiledPath;
+    private ArrayList<Tower> towers;
+    private MonsterStore monsters;
+    private PathCoverage pathCoverage;
+    private PlacementGrid placementGrid;
+    private WaveSchedule waveSchedule;
+    private int[] spawnTicks, spawnTypes;
+    private GameRandom rand, waveRand;
+    private long seed;
+    private InputRecorder recorder;
+    private GameEventBus events;
+    private GameClient server;
+    private int[] deathStats;
+    private ForkJoinPool firingPool;
+    private int[] targets;
+    private int score, money, waveNumber;
+    private int leakCount, killCount;
+    private boolean stillPlaying;
+    private long tick;
+
+    private int xStart, yStart;
+    private boolean spawning;
+    private int spawnCount, spawnCursor, waveTick;
+    private long waveSeed;
+
+    /**
+    * Constructs a new game on the default path with the starting score and
+    * money
+    */
+    public GameEngine() {
+        this(new Random().nextLong());
+    }
+
+    /**
+    * Constructs a new game on the default path with the starting score and
+    * money, using a seed for every random choice so the game can be played
+    * the same way again
+    *
+    * @param seed The seed for the game's random number generator
+    */
+    public GameEngine(long seed) {
+        this(seed, WaveSchedule.createDefault());
+    }
+
+    /**
+    * Constructs a new game on the default path with the starting score and
+    * money whose waves follow a schedule
+    *
+    * @param seed The seed for the game's random number generator
+    * @param waveSchedule The Monsters each wave releases
+    */
+    public GameEngine(long seed, WaveSchedule waveSchedule) {
+        this.seed = seed;
+        this.waveSchedule = waveSchedule;
+        spawnTicks = new int[0];
+        spawnTypes = new int[0];
+        rand = new GameRandom(seed);
+        waveRand = new GameRandom(0);
+        events = new GameEventBus();
+        deathStats = new int[2];
+        targets = new int[0];
+        towers = new ArrayList<Tower>();
+        monsters = new MonsterStore();
+        placementGrid = new PlacementGrid(GamePanel.BOUNDS);
+        setPath(constructPath());
+
+        score = STARTING_SCORE;
+        money = STARTING_MONEY;
+        waveNumber = 0;
+        stillPlaying = true;
+        tick = 0;
+        spawning = false;
+        waveSeed = 0;
+    }
+
+    /**
+    * Advances the game by one fixed timestep of TICK_MILLIS milliseconds.
+    * Does nothing once the game is over. Each phase is timed with a
+    * TickPhaseEvent for Java Flight Recorder
+    */
+    public void step() {
+        if (!isRunning()) {
+            return;
+        }
+        long phaseStart = System.nanoTime();
+        spawnMonsters();
+        phaseStart = TickPhaseEvent.record(TickPhaseEvent.SPAWN_MONSTERS, this,
+                                                                phaseStart);
+        moveAll();
+        phaseStart = TickPhaseEvent.record(TickPhaseEvent.MOVE_ALL, this,
+                                                                phaseStart);
+        orderMonsters();
+        phaseStart = TickPhaseEvent.record(TickPhaseEvent.ORDER_MONSTERS,
+                                                        this, phaseStart);
+        fireTowers();
+        phaseStart = TickPhaseEvent.record(TickPhaseEvent.FIRE_TOWERS, this,
+                                                                phaseStart);
+        int[] stats = checkForDeath();
+        TickPhaseEvent.record(TickPhaseEvent.CHECK_FOR_DEATH, this,
+                                                                phaseStart);
+        updateStats(stats);
+        tick++;
+        if (recorder != null) {
+            recorder.recordChecksum(tick, checksum());
+        }
+    }
+
+    /**
+    * Advances the game by a number of fixed timesteps, stopping early if the
+    * game ends
+    *
+    * @param ticks The number of timesteps to run
+    */
+    public void step(int ticks) {
+        for (int i = 0; i < ticks && isRunning(); i++) {
+            step();
+        }
+    }
+
+    /**
+    * Sends the next wave of Monsters if the previous wave has finished
+    * releasing. Asking for a wave after the last one ends the game
+    */
+    public void sendNextWave() {
+        if (server != null) {
+            server.sendWave();
+            return;
+        }
+        if (recorder != null) {
+            recorder.recordWave(tick);
+        }
+        if (waveNumber == MAX_WAVES) {
+            waveNumber++;
+            stillPlaying = false;
+            startWave();
+        }
+        if (!spawning && waveNumber < MAX_WAVES) {
+            waveNumber++;
+            startWave();
+        }
+    }
+
+    /**
+    * Creates a new Tower and places it on the map if the location is valid
+    * and the player can afford it
+    *
+    * @param p The location of the new Tower
+    * @param type The int representation of the new Tower type
+    * @return Tower The newly placed Tower, or null if it could not be placed
+    */
+    public Tower placeTower(Point p, int type) {
+        if (server != null) {
+            server.sendPlaceTower(type, (int) p.getX(), (int) p.getY());
+            return null;
+        }
+        if (recorder != null) {
+            recorder.recordTowerPlacement(tick, type, (int) p.getX(),
+                                                            (int) p.getY());
+        }
+        Tower result = createTower(p, type);
+        if (result == null || !result.canPlaceOnMap(placementGrid)
+                                || !removeFromMoney(result.getCost())) {
+            return null;
+        }
+        addTower(result);
+        return result;
+    }
+
+    /**
+    * Decides whether a Tower could be placed at a location, whatever its
+    * type and cost
+    *
+    * @param p The location of the top left corner of the Tower
+    * @return boolean Whether or not the location is free
+    */
+    public boolean canPlaceTower(Point p) {
+        return placementGrid.canPlace((int) p.getX(), (int) p.getY());
+    }
+
+    /**
+    * Puts a Tower on the map without checking its location or charging for
+    * it, such as when restoring a saved game or building a test map
+    *
+    * @param tower The Tower to add
+    */
+    public void addTower(Tower tower) {
+        towers.add(tower);
+        placementGrid.addTower(tower);
+        pathCoverage.addTower(tower);
+        events.publish(GameEventBus.TOWER_PLACED, tick, tower.getType(),
+                                                        towers.size() - 1);
+    }
+
+    /**
+    * Replaces the path the Monsters follow. Monsters already on the map keep
+    * their distance along the path, so this is meant to be used before the
+    * first wave
+    *
+    * @param path The ArrayList of Lines that defines the new path
+    */
+    public void setPath(ArrayList<Line> path) {
+        this.path = path;
+        compiledPath = new CompiledPath(path);
+        if (pathCoverage == null) {
+            pathCoverage = new PathCoverage(compiledPath);
+        } else {
+            pathCoverage.setPath(compiledPath, towers);
+        }
+        placementGrid.setPath(path);
+        xStart = (int) path.get(0).getStart().getX();
+        yStart = (int) path.get(0).getStart().getY();
+    }
+
+    /**
+    * Gets the number of bytes writeSnapshot needs to write this game
+    *
+    * @return int The size of the game when written
+    */
+    public int getSnapshotSize() {
+        return 4 * 8 + waveSchedule.getWrittenSize() + 7 * 4 + 2
+                        + 4 + path.size() * 4 * 4
+                        + 4 + towers.size() * (1 + 2 * 4)
+                        + monsters.getWrittenSize();
+    }
+
+    /**
+    * Writes the full state of the game to a buffer
+    *
+    * @param buffer The buffer to write to
+    */
+    public void writeSnapshot(ByteBuffer buffer) {
+        buffer.putLong(seed);
+        waveSchedule.writeTo(buffer);
+        buffer.putLong(rand.getState());
+        buffer.putLong(waveSeed);
+        buffer.putLong(tick);
+        buffer.putInt(score);
+        buffer.putInt(money);
+        buffer.putInt(waveNumber);
+        buffer.putInt(leakCount);
+        buffer.putInt(killCount);
+        buffer.putInt(spawnCursor);
+        buffer.putInt(waveTick);
+        buffer.put((byte) (stillPlaying ? 1 : 0));
+        buffer.put((byte) (spawning ? 1 : 0));
+
+        buffer.putInt(path.size());
+        for (Line line : path) {
+            buffer.putInt((int) line.getStart().getX());
+            buffer.putInt((int) line.getStart().getY());
+            buffer.putInt((int) line.getEnd().getX());
+            buffer.putInt((int) line.getEnd().getY());
+        }
+
+        buffer.putInt(towers.size());
+        for (Tower tower : towers) {
+            buffer.put((byte) tower.getType());
+            buffer.putInt(tower.getX());
+            buffer.putInt(tower.getY());
+        }
+
+        monsters.writeTo(buffer);
+    }
+
+    /**
+    * Reads a game written by writeSnapshot. The game continues exactly as
+    * the saved game would have, including its random choices
+    *
+    * @param buffer The buffer to read from
+    * @return GameEngine The restored game
+    */
+    public static GameEngine readSnapshot(ByteBuffer buffer) {
+        long seed = buffer.getLong();
+        GameEngine engine = new GameEngine(seed,
+                                            WaveSchedule.readFrom(buffer));
+        engine.rand.setState(buffer.getLong());
+        engine.waveSeed = buffer.getLong();
+        engine.tick = buffer.getLong();
+        engine.score = buffer.getInt();
+        engine.money = buffer.getInt();
+        engine.waveNumber = buffer.getInt();
+        engine.leakCount = buffer.getInt();
+        engine.killCount = buffer.getInt();
+        int cursor = buffer.getInt();
+        int waveTick = buffer.getInt();
+        engine.stillPlaying = buffer.get() != 0;
+        if (buffer.get() != 0) {
+            engine.compileWave();
+        }
+        engine.spawnCursor = cursor;
+        engine.waveTick = waveTick;
+
+        int lines = buffer.getInt();
+        ArrayList<Line> path = new ArrayList<Line>(lines);
+        for (int i = 0; i < lines; i++) {
+            path.add(new Line(buffer.getInt(), buffer.getInt(),
+                                        buffer.getInt(), buffer.getInt()));
+        }
+        engine.setPath(path);
+
+        int towerCount = buffer.getInt();
+        for (int i = 0; i < towerCount; i++) {
+            int type = buffer.get();
+            Point p = new Point(buffer.getInt(), buffer.getInt());
+            engine.addTower(createTower(p, type));
+        }
+
+        engine.monsters.readFrom(buffer);
+        return engine;
+    }
+
+    /**
+    * Records every following input and tick checksum so that the game can be
+    * replayed. Inputs are recorded whether or not they change the game
+    *
+    * @param recorder The recorder to write to, or null to stop recording
+    */
+    public void setInputRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+    * Makes this game a copy of a game running on a GameServer. Placing a
+    * Tower or sending a wave sends the command to the server instead, and
+    * the state of the game is set by the client from what the server sends
+    *
+    * @param server The connection to the server, or null to play locally
+    */
+    public void setServerConnection(GameClient server) {
+        this.server = server;
+    }
+
+    /**
+    * Gets the connection to the server this game copies
+    *
+    * @return server The connection, or null if the game is played locally
+    */
+    public GameClient getServerConnection() {
+        return server;
+    }
+
+    /**
+    * Sets the state of a game copied from a GameServer, publishing events
+    * for the score, money and wave number if they changed
+    *
+    * @param tick The number of ticks the server's game has run
+    * @param score The score of the player
+    * @param money The money the player has to spend
+    * @param waveNumber The current wave number
+    * @param stillPlaying Whether or not the player is still playing
+    * @param spawning Whether or not the wave is still releasing Monsters
+    */
+    public void applyServerState(long tick, int score, int money,
+                                int waveNumber, boolean stillPlaying,
+                                boolean spawning) {
+        this.tick = tick;
+        if (score != this.score) {
+            events.publish(GameEventBus.SCORE_CHANGED, tick, score,
+                                                        score - this.score);
+            this.score = score;
+        }
+        if (money != this.money) {
+            events.publish(GameEventBus.MONEY_CHANGED, tick, money,
+                                                        money - this.money);
+            this.money = money;
+        }
+        if (waveNumber != this.waveNumber) {
+            events.publish(GameEventBus.WAVE_STARTED, tick, waveNumber, 0);
+            this.waveNumber = waveNumber;
+        }
+        this.stillPlaying = stillPlaying;
+        this.spawning = spawning;
+    }
+
+    /**
+    * Gets the recorder inputs are written to
+    *
+    * @return recorder The recorder, or null if the game is not recorded
+    */
+    public InputRecorder getInputRecorder() {
+        return recorder;
+    }
+
+    /**
+    * Notes that the player changed the game speed. Speed has no effect on
+    * the simulation, so this only matters to a recording
+    *
+    * @param speed The new speed multiplier, or InputPanel.MAX_SPEED
+    */
+    public void speedChanged(int speed) {
+        if (recorder != null) {
+            recorder.recordSpeed(tick, speed);
+        }
+    }
+
+    /**
+    * Computes a checksum of the whole game state. Two games that have been
+    * given the same seed and inputs have the same checksum after every tick
+    *
+    * @return int The checksum of the game state
+    */
+    public int checksum() {
+        int hash = (int) tick;
+        hash = 31 * hash + score;
+        hash = 31 * hash + money;
+        hash = 31 * hash + waveNumber;
+        hash = 31 * hash + leakCount;
+        hash = 31 * hash + killCount;
+        hash = 31 * hash + (stillPlaying ? 1 : 0);
+        hash = 31 * hash + (spawning ? 1 : 0);
+        hash = 31 * hash + spawnCursor;
+        hash = 31 * hash + waveTick;
+        hash = 31 * hash + (int) (waveSeed ^ (waveSeed >>> 32));
+        for (int i = 0; i < towers.size(); i++) {
+            Tower tower = towers.get(i);
+            hash = 31 * hash + tower.getX();
+            hash = 31 * hash + tower.getY();
+            hash = 31 * hash + tower.getDamage();
+        }
+        return monsters.checksum(hash);
+    }
+
+    /**
+    * Creates a new Tower based on location and Tower type without placing it
+    *
+    * @param p The location of the new Tower
+    * @param type The int representation of the new Tower type
+    * @return Tower The newly constructed Tower, or null for an unknown type
+    */
+    public static Tower createTower(Point p, int type) {
+        if (type == Tower.BASIC_TOWER) {
+            return new BasicTower(p);
+        } else if (type == Tower.ADVANCED_TOWER) {
+            return new AdvancedTower(p);
+        }
+        return null;
+    }
+
+    /**
+    * Make the Towers fire to the farthest along Monster if in range. The
+    * Monsters must already be ordered, farthest along first. Each Tower
+    * looks up its target in the stretches of path it covers
+    */
+    public void fireTowers() {
+        if (monsters.isEmpty()) {
+            return;
+        }
+        if (firingPool != null
+                            && towers.size() > TargetSearch.TOWERS_PER_TASK) {
+            fireTowersInParallel();
+            return;
+        }
+        for (int i = 0; i < towers.size(); i++) {
+            int target = pathCoverage.findTarget(i, monsters);
+            if (target >= 0) {
+                towers.get(i).fire(monsters, target);
+            }
+        }
+    }
+
+    /**
+    * Sets how many threads search for the Towers' targets. With more than
+    * one thread the tower list is split across a fork/join pool, and the
+    * game plays out exactly as it does with one
+    *
+    * @param threads The number of threads, where 1 fires on the calling
+    * thread only
+    */
+    public void setFiringThreads(int threads) {
+        if (firingPool != null) {
+            firingPool.shutdown();
+            firingPool = null;
+        }
+        if (threads > 1) {
+            firingPool = new ForkJoinPool(threads);
+        }
+    }
+
+    /**
+    * Checks for Monster deaths and reaching the end. It gathers the amount
+    * of score lost from unkilled Monsters and money generated from killed
+    * monsters, publishing an event for each
+    *
+    * @return int[] The array of score lost and money gained. The same array
+    * is reused by every call
+    */
+    public int[] checkForDeath() {
+        int[] stats = deathStats;
+        stats[0] = 0;
+        stats[1] = 0;
+        for (int i = 0; i < monsters.size(); i++) {
+            if (monsters.didReachEnd(i)) {
+                int loss = monsters.getScoreLoss(i);
+                stats[0] += loss;
+                leakCount++;
+                events.publish(GameEventBus.MONSTER_LEAKED, tick,
+                                                monsters.getType(i), loss);
+            } else if (monsters.isDead(i)) {
+                int value = monsters.getMoneyValue(i);
+                stats[1] += value;
+                killCount++;
+                events.publish(GameEventBus.MONSTER_KILLED, tick,
+                                                monsters.getType(i), value);
+            }
+        }
+        monsters.removeFinished();
+        return stats;
+    }
+
+    /**
+    * Moves all Monsters in the game along the path
+    */
+    public void moveAll() {
+        monsters.moveAll(compiledPath, rand);
+    }
+
+    /**
+    * Orders the Monsters so the farthest along Monster comes first, fixing
+    * up the order from the previous tick rather than sorting from scratch
+    */
+    public void orderMonsters() {
+        monsters.order();
+    }
+
+    /**
+    * Tells whether the game still needs to be advanced
+    *
+    * @return boolean True while the player is still playing or Monsters are
+    * still on the map
+    */
+    public boolean isRunning() {
+        return stillPlaying || !monsters.isEmpty();
+    }
+
+    /**
+    * Tells whether the game ended with the player surviving every wave
+    *
+    * @return boolean Whether or not the player won
+    */
+    public boolean isWon() {
+        return !isRunning() && waveNumber > MAX_WAVES;
+    }
+
+    /**
+    * Tells whether the game ended with the player's score running out
+    *
+    * @return boolean Whether or not the player lost
+    */
+    public boolean isLost() {
+        return !isRunning() && score <= 0;
+    }
+
+    /**
+    * Tells whether the player is still playing, which stops being true when
+    * the score runs out or the last wave has been sent
+    *
+    * @return stillPlaying Whether or not the player is still playing
+    */
+    public boolean isStillPlaying() {
+        return stillPlaying;
+    }
+
+    /**
+    * Tells whether the current wave is still releasing Monsters
+    *
+    * @return spawning Whether or not Monsters are still being released
+    */
+    public boolean isSpawning() {
+        return spawning;
+    }
+
+    /**
+    * Gets the path the Monsters follow
+    *
+    * @return path The ArrayList of Lines that defines the path
+    */
+    public ArrayList<Line> getPath() {
+        return path;
+    }
+
+    /**
+    * Gets the path compiled into distances along it
+    *
+    * @return compiledPath The CompiledPath built from the path
+    */
+    public CompiledPath getCompiledPath() {
+        return compiledPath;
+    }
+
+    /**
+    * Gets the Towers currently on the map
+    *
+    * @return towers The ArrayList of Towers on the map
+    */
+    public ArrayList<Tower> getTowers() {
+        return towers;
+    }
+
+    /**
+    * Gets the Monsters currently on the map, farthest along first
+    *
+    * @return monsters The MonsterStore holding the Monsters on the map
+    */
+    public MonsterStore getMonsters() {
+        return monsters;
+    }
+
+    /**
+    * Gets the current score
+    *
+    * @return score The score of the player
+    */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+    * Gets the current amount of money
+    *
+    * @return money The money the player has to spend on Towers
+    */
+    public int getMoney() {
+        return money;
+    }
+
+    /**
+    * Gets the current wave number of the game
+    *
+    * @return waveNumber The current wave number of the game
+    */
+    public int getWaveNumber() {
+        return waveNumber;
+    }
+
+    /**
+    * Gets the number of Monsters that have reached the end of the path
+    *
+    * @return leakCount The number of Monsters that got through
+    */
+    public int getLeakCount() {
+        return leakCount;
+    }
+
+    /**
+    * Gets the number of Monsters the Towers have killed
+    *
+    * @return killCount The number of Monsters killed
+    */
+    public int getKillCount() {
+        return killCount;
+    }
+
+    /**
+    * Gets the game's random number generator. Every random choice in the
+    * game is drawn from it, in order
+    *
+    * @return rand The game's random number generator
+    */
+    public Random getRandom() {
+        return rand;
+    }
+
+    /**
+    * Gets the grid that decides where Towers can be placed
+    *
+    * @return placementGrid The game's PlacementGrid
+    */
+    public PlacementGrid getPlacementGrid() {
+        return placementGrid;
+    }
+
+    /**
+    * Gets the bus the game publishes its events to. A loaded or new game
+    * has a bus of its own
+    *
+    * @return events The game's GameEventBus
+    */
+    public GameEventBus getEventBus() {
+        return events;
+    }
+
+    /**
+    * Gets the schedule of Monsters each wave releases
+    *
+    * @return waveSchedule The game's wave schedule
+    */
+    public WaveSchedule getWaveSchedule() {
+        return waveSchedule;
+    }
+
+    /**
+    * Gets the seed the game's random number generator started with
+    *
+    * @return seed The seed of the game
+    */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+    * Finds every Tower's target on the firing pool, then applies the damage
+    * in tower order. Choosing a target only depends on where the Monsters
+    * are, not on their health, so the result is the same as firing one
+    * Tower at a time
+    */
+    private void fireTowersInParallel() {
+        int count = towers.size();
+        if (targets.length < count) {
+            targets = new int[Math.max(count, targets.length * 2)];
+        }
+        firingPool.invoke(new TargetSearch(pathCoverage, monsters, targets,
+                                                                0, count));
+        for (int i = 0; i < count; i++) {
+            if (targets[i] >= 0) {
+                towers.get(i).fire(monsters, targets[i]);
+            }
+        }
+    }
+
+    /**
+    * Gets the number of timesteps that have been simulated
+    *
+    * @return tick The number of timesteps run so far
+    */
+    public long getTick() {
+        return tick;
+    }
+
+    private void updateStats(int[] stats) {
+        if (stats[0] != 0) {
+            int before = score;
+            score -= stats[0];
+            if (score <= 0) {
+                score = 0;
+                stillPlaying = false;
+            }
+            events.publish(GameEventBus.SCORE_CHANGED, tick, score,
+                                                            score - before);
+        }
+        if (stats[1] != 0) {
+            money += stats[1];
+            events.publish(GameEventBus.MONEY_CHANGED, tick, money, stats[1]);
+        }
+    }
+
+    private boolean removeFromMoney(int spent) {
+        if (money - spent < 0) {
+            return false;
+        }
+        money -= spent;
+        events.publish(GameEventBus.MONEY_CHANGED, tick, money, -spent);
+        return true;
+    }
+
+    private void startWave() {
+        if (!spawning) {
+            waveSeed = rand.nextLong();
+            compileWave();
+            WaveStartEvent.record(this);
+            events.publish(GameEventBus.WAVE_STARTED, tick, waveNumber,
+                                                                spawnCount);
+        }
+    }
+
+    /**
+    * Compiles the current wave from the schedule into the spawn arrays and
+    * starts releasing it. The wave's random counts come from a generator
+    * seeded with waveSeed rather than the game's own, so a snapshot taken
+    * during the wave compiles it again to the same Monsters
+    */
+    private void compileWave() {
+        int maxCount = waveSchedule.getMaxSpawnCount(waveNumber);
+        if (spawnTicks.length < maxCount) {
+            spawnTicks = new int[maxCount];
+            spawnTypes = new int[maxCount];
+        }
+        waveRand.setSeed(waveSeed);
+        spawnCount = waveSchedule.compile(waveNumber, waveRand, spawnTicks,
+                                                                spawnTypes);
+        spawnCursor = 0;
+        waveTick = 0;
+        spawning = true;
+    }
+
+    private void spawnMonsters() {
+        if (!spawning) {
+            return;
+        }
+        waveTick++;
+        while (spawnCursor < spawnCount
+                                && spawnTicks[spawnCursor] <= waveTick) {
+            spawn(spawnTypes[spawnCursor]);
+            spawnCursor++;
+        }
+        if (spawnCursor == spawnCount) {
+            spawning = false;
+            events.publish(GameEventBus.WAVE_ENDED, tick, waveNumber, 0);
+        }
+    }
+
+    private void spawn(int type) {
+        monsters.add(MonsterType.get(type), xStart, yStart);
+    }
+
+    private static ArrayList<Line> constructPath() {
+        ArrayList<Line> path = new ArrayList<Line>(5);
+        path.add(new Line(700, 600, 200, 600));
+        path.add(new Line(path.get(path.size() - 1).getEnd(),
+                                                        new Point(200, 100)));
+        path.add(new Line(path.get(path.size() - 1).getEnd(),
+                                                        new Point(600, 100)));
+        path.add(new Line(path.get(path.size() - 1).getEnd(),
+                                                        new Point(600, 400)));
+        path.add(new Line(path.get(path.size() - 1).getEnd(),
+                                                        new Point(0, 400)));
+        return path;
+    }
+}
@@ -0,0 +1,214 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * GameEventBus carries what happens in a game, such as kills, leaks and
+ * changes in money, from the GameEngine to anything that wants to show or
+ * record it. Events go into a ring of preallocated slots written only by
+ * the thread stepping the game, so publishing never blocks and never
+ * allocates. Each consumer reads with its own Reader, on its own schedule,
+ * from wherever it got to. The game never waits for a slow Reader: once the
+ * ring wraps past a Reader's position the events it missed are counted as
+ * lost and it carries on from the oldest event still in the ring. The ring
+ * is only allocated once the first Reader is created, so a game nobody
+ * reads, such as one of many run by a GameFarm, does not hold one. Events
+ * published before then are not kept
+ *
+ * Each event is a kind, the tick it happened on, a value and an amount:
+ *
+ *     MONSTER_KILLED  Monster type id, money it was worth
+ *     MONSTER_LEAKED  Monster type id, score it cost
+ *     MONEY_CHANGED   new money, change in money
+ *     SCORE_CHANGED   new score, change in score
+ *     WAVE_STARTED    wave number, number of Monsters in the wave
+ *     WAVE_ENDED      wave number, 0, once the wave released its last one
+ *     TOWER_PLACED    Tower type, index of the Tower in the tower list
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameEventBus {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    public static final int MONSTER_KILLED = 0;
+    public static final int MONSTER_LEAKED = 1;
+    public static final int MONEY_CHANGED = 2;
+    public static final int SCORE_CHANGED = 3;
+    public static final int WAVE_STARTED = 4;
+    public static final int WAVE_ENDED = 5;
+    public static final int TOWER_PLACED = 6;
+
+    private static final VarHandle PUBLISHED;
+    private static final VarHandle CLAIMED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PUBLISHED = lookup.findVarHandle(GameEventBus.class, "published",
+                                                                long.class);
+            CLAIMED = lookup.findVarHandle(GameEventBus.class, "claimed",
+                                                                long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity, mask;
+    private int[] kinds, values, amounts;
+    private long[] ticks;
+    private long published, claimed;
+    private volatile long ringStart;
+    private volatile boolean read;
+
+    /**
+    * Constructs a bus holding the last DEFAULT_CAPACITY events
+    */
+    public GameEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+    * Constructs a bus holding a number of the most recent events
+    *
+    * @param capacity The number of events kept, rounded up to a power of two
+    */
+    public GameEventBus(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        mask = this.capacity - 1;
+        published = 0;
+        claimed = 0;
+        ringStart = Long.MAX_VALUE;
+        read = false;
+    }
+
+    /**
+    * Adds an event to the ring, overwriting the oldest one once it is full.
+    * Until a Reader has been created the event is only counted. Must only
+    * be called from the thread stepping the game
+    *
+    * @param kind The kind of event, such as MONSTER_KILLED
+    * @param tick The tick the event happened on
+    * @param value The first int of the event
+    * @param amount The second int of the event
+    */
+    public void publish(int kind, long tick, int value, int amount) {
+        long sequence = published;
+        if (kinds == null) {
+            if (!read) {
+                PUBLISHED.setRelease(this, sequence + 1);
+                return;
+            }
+            kinds = new int[capacity];
+            values = new int[capacity];
+            amounts = new int[capacity];
+            ticks = new long[capacity];
+            ringStart = sequence;
+        }
+        CLAIMED.setOpaque(this, sequence + 1);
+        VarHandle.storeStoreFence();
+        int slot = (int) sequence & mask;
+        kinds[slot] = kind;
+        ticks[slot] = tick;
+        values[slot] = value;
+        amounts[slot] = amount;
+        PUBLISHED.setRelease(this, sequence + 1);
+    }
+
+    /**
+    * Gets the number of events published so far
+    *
+    * @return long The number of events ever published
+    */
+    public long getPublishedCount() {
+        return (long) PUBLISHED.getAcquire(this);
+    }
+
+    /**
+    * Gets the number of events kept before the oldest is overwritten
+    *
+    * @return capacity The size of the ring
+    */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+    * Creates a Reader that sees every event published from now on
+    *
+    * @return Reader A new Reader positioned after the latest event
+    */
+    public Reader newReader() {
+        read = true;
+        return new Reader(getPublishedCount());
+    }
+
+    /**
+    * A Reader is one consumer's position in the bus. A Reader may be used
+    * from any one thread at a time, including one other than the thread
+    * publishing events
+    */
+    public class Reader {
+
+        private long next, lost;
+
+        private Reader(long next) {
+            this.next = next;
+            lost = 0;
+        }
+
+        /**
+        * Hands every event published since the last drain to a listener, in
+        * order. Events overwritten before they could be read, or published
+        * before the ring was allocated, are skipped and added to the lost
+        * count
+        *
+        * @param listener The listener to give the events to
+        * @return int The number of events given to the listener
+        */
+        public int drain(GameEventListener listener) {
+            long end = getPublishedCount();
+            long start = ringStart;
+            if (next < end && next < start) {
+                skipTo(Math.min(start, end));
+            }
+            int drained = 0;
+            while (next < end) {
+                if (end - next > capacity) {
+                    skipTo(end - capacity);
+                }
+                int slot = (int) next & mask;
+                int kind = kinds[slot];
+                long tick = ticks[slot];
+                int value = values[slot];
+                int amount = amounts[slot];
+                VarHandle.loadLoadFence();
+                long oldest = (long) CLAIMED.getOpaque(GameEventBus.this)
+                                                                    - capacity;
+                if (oldest > next) {
+                    skipTo(oldest);
+                    continue;
+                }
+                next++;
+                drained++;
+                listener.onEvent(kind, tick, value, amount);
+            }
+            return drained;
+        }
+
+        /**
+        * Gets the number of events this Reader missed because the ring
+        * wrapped past it
+        *
+        * @return lost The number of events lost
+        */
+        public long getLostCount() {
+            return lost;
+        }
+
+        private void skipTo(long sequence) {
+            lost += sequence - next;
+            next = sequence;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * A GameEventListener is handed the events a GameEventBus.Reader drains. The
+ * meaning of value and amount depends on the kind of event, as listed in
+ * GameEventBus
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public interface GameEventListener {
+
+    /**
+    * Handles one event
+    *
+    * @param kind The kind of event, such as GameEventBus.MONSTER_KILLED
+    * @param tick The tick the event happened on
+    * @param value The first int of the event
+    * @param amount The second int of the event
+    */
+    void onEvent(int kind, long tick, int value, int amount);
+}
@@ -0,0 +1,484 @@
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameFarm runs many headless games in one JVM for GameBots to play, with no
+ * Swing involved. Sessions do not get threads of their own: a fixed number
+ * of worker threads take whichever sessions are due from one shared queue,
+ * step each for a slice of up to SLICE_TICKS ticks and put it back. The
+ * farm never uses more CPU than its worker threads, and a session that is
+ * paused or waiting for its next tick costs nothing but its GameEngine. A
+ * session either runs as fast as the workers allow or is paced with a fixed
+ * interval between ticks, such as GameEngine.TICK_MILLIS for real time
+ *
+ * Sessions are isolated from each other. Each has its own GameEngine, and a
+ * session whose bot or game throws is finished with the failure recorded
+ * while the others carry on. A session can be given a CPU budget and a
+ * tick limit, and is finished once it has used either up. The farm does not
+ * touch a paused or finished session, so its GameEngine can be read safely
+ *
+ * Usage: java GameFarm [sessions] [threads] [ticks]
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameFarm {
+
+    public static final int SLICE_TICKS = 64;
+    public static final long MAX_LAG_NANOS = 1000000000L;
+    public static final int SESSIONS = 1000;
+    public static final int TICKS = 5000;
+    public static final int TOWER_INTERVAL = 200;
+
+    public static final int QUEUED = 0;
+    public static final int STEPPING = 1;
+    public static final int PAUSED = 2;
+    public static final int FINISHED = 3;
+
+    private DelayQueue<Session> ready;
+    private ArrayList<Session> sessions;
+    private Thread[] workers;
+    private ThreadMXBean threadBean;
+    private boolean cpuTimed;
+    private int active, nextId;
+    private volatile boolean running;
+
+    /**
+    * Starts a farm with no sessions
+    *
+    * @param threads The number of worker threads, which bounds the CPU the
+    * farm uses
+    */
+    public GameFarm(int threads) {
+        ready = new DelayQueue<Session>();
+        sessions = new ArrayList<Session>();
+        threadBean = ManagementFactory.getThreadMXBean();
+        cpuTimed = threadBean.isCurrentThreadCpuTimeSupported()
+                                    && threadBean.isThreadCpuTimeEnabled();
+        active = 0;
+        nextId = 0;
+        running = true;
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, "GameFarm-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0])
+                                                                : SESSIONS;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                                : Runtime.getRuntime().availableProcessors();
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : TICKS;
+
+        GameFarm farm = new GameFarm(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < sessionCount; i++) {
+            Session session = farm.addSession(new GameEngine(i),
+                                                        createRandomBot(i));
+            session.setTickLimit(ticks);
+            farm.resume(session);
+        }
+        farm.awaitIdle();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long totalTicks = 0, cpuNanos = 0;
+        int over = 0, failed = 0;
+        for (Session session : farm.getSessions()) {
+            totalTicks += session.getTicksRun();
+            cpuNanos += session.getCpuNanos();
+            if (!session.getEngine().isRunning()) {
+                over++;
+            }
+            if (session.getFailure() != null) {
+                failed++;
+            }
+        }
+        farm.shutdown();
+        System.out.printf("%d sessions on %d threads: %d ticks in %.2f s "
+                        + "(%.0f ticks/s)%n", sessionCount, threads,
+                        totalTicks, seconds, totalTicks / seconds);
+        System.out.printf("%d games over, %d failed, %.2f ms CPU per "
+                        + "session%n", over, failed,
+                        cpuNanos / 1e6 / Math.max(1, sessionCount));
+    }
+
+    /**
+    * Adds a session to the farm. It starts paused, so that its tick
+    * interval and limits can be set before resume is called
+    *
+    * @param engine The game the session plays
+    * @param bot The bot that plays it, or null to only step the game
+    * @return Session The new session
+    */
+    public synchronized Session addSession(GameEngine engine, GameBot bot) {
+        Session session = new Session(nextId++, engine, bot);
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+    * Pauses a session and removes it from the farm
+    *
+    * @param session The session to remove
+    * @throws InterruptedException If interrupted while waiting for a slice
+    * of the session to finish
+    */
+    public synchronized void removeSession(Session session)
+                                                throws InterruptedException {
+        pause(session);
+        sessions.remove(session);
+    }
+
+    /**
+    * Stops stepping a session, waiting for a slice of it that is being
+    * stepped to finish. Does nothing to a finished session
+    *
+    * @param session The session to pause
+    * @throws InterruptedException If interrupted while waiting
+    */
+    public synchronized void pause(Session session)
+                                                throws InterruptedException {
+        session.pausing = true;
+        while (session.state == STEPPING) {
+            wait();
+        }
+        if (session.state == QUEUED) {
+            if (ready.remove(session)) {
+                session.queued = false;
+            }
+            session.state = PAUSED;
+            active--;
+            notifyAll();
+        }
+    }
+
+    /**
+    * Starts stepping a paused session again, from its next tick. Does
+    * nothing to a session that is not paused. A session paused just after a
+    * worker took it from the queue is still held by that worker, which
+    * steps it once it is resumed, so it is not queued a second time
+    *
+    * @param session The session to resume
+    */
+    public synchronized void resume(Session session) {
+        session.pausing = false;
+        if (session.state == PAUSED) {
+            session.state = QUEUED;
+            active++;
+            if (!session.queued) {
+                session.queued = true;
+                session.nextTick = System.nanoTime();
+                ready.add(session);
+            }
+        }
+    }
+
+    /**
+    * Waits until every session is paused or finished
+    *
+    * @throws InterruptedException If interrupted while waiting
+    */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (active > 0) {
+            wait();
+        }
+    }
+
+    /**
+    * Stops the worker threads once their current slices are done. The
+    * sessions are left as they are
+    *
+    * @throws InterruptedException If interrupted while waiting for the
+    * workers to stop
+    */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+    * Gets every session in the farm
+    *
+    * @return ArrayList<Session> A copy of the list of sessions
+    */
+    public synchronized ArrayList<Session> getSessions() {
+        return new ArrayList<Session>(sessions);
+    }
+
+    /**
+    * Gets the number of sessions that are neither paused nor finished
+    *
+    * @return active The number of sessions being stepped
+    */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+    * Creates a bot that sends each wave as soon as the map is clear and
+    * asks for a Tower at a random place every TOWER_INTERVAL ticks
+    *
+    * @param seed The seed of the bot's choices
+    * @return GameBot The new bot
+    */
+    public static GameBot createRandomBot(long seed) {
+        final Random rand = new Random(seed);
+        return new GameBot() {
+            public void act(GameEngine engine) {
+                if (!engine.isSpawning() && engine.getMonsters().isEmpty()) {
+                    engine.sendNextWave();
+                }
+                if (engine.getTick() % TOWER_INTERVAL == 0) {
+                    engine.placeTower(new Point(
+                                        rand.nextInt(GamePanel.WIDTH),
+                                        rand.nextInt(GamePanel.HEIGHT)),
+                                        Tower.BASIC_TOWER);
+                }
+            }
+        };
+    }
+
+    private void work() {
+        while (running) {
+            Session session;
+            try {
+                session = ready.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!startSlice(session)) {
+                continue;
+            }
+            long start = getThreadNanos();
+            try {
+                session.runSlice();
+            } finally {
+                session.cpuNanos += getThreadNanos() - start;
+                endSlice(session);
+            }
+        }
+    }
+
+    private synchronized boolean startSlice(Session session) {
+        session.queued = false;
+        if (session.state != QUEUED) {
+            return false;
+        }
+        session.state = STEPPING;
+        return true;
+    }
+
+    private synchronized void endSlice(Session session) {
+        if (session.isDone()) {
+            session.state = FINISHED;
+            active--;
+        } else if (session.pausing) {
+            session.state = PAUSED;
+            active--;
+        } else {
+            session.state = QUEUED;
+            session.queued = true;
+            ready.add(session);
+        }
+        notifyAll();
+    }
+
+    private long getThreadNanos() {
+        return cpuTimed ? threadBean.getCurrentThreadCpuTime()
+                        : System.nanoTime();
+    }
+
+    /**
+    * A Session is one game in a GameFarm. Its settings may only be changed
+    * while it is paused, and what it reports is only exact while it is
+    * paused or finished
+    */
+    public static class Session implements Delayed {
+
+        private int id;
+        private GameEngine engine;
+        private GameBot bot;
+        private long tickNanos, tickLimit, cpuBudgetNanos;
+        private long nextTick, ticksRun, cpuNanos;
+        private Throwable failure;
+        private volatile int state;
+        private boolean pausing, queued;
+
+        private Session(int id, GameEngine engine, GameBot bot) {
+            this.id = id;
+            this.engine = engine;
+            this.bot = bot;
+            tickNanos = 0;
+            tickLimit = 0;
+            cpuBudgetNanos = 0;
+            ticksRun = 0;
+            cpuNanos = 0;
+            state = PAUSED;
+            pausing = false;
+            queued = false;
+        }
+
+        /**
+        * Sets the time between ticks
+        *
+        * @param tickNanos The nanoseconds between ticks, or 0 to run as
+        * fast as the farm allows
+        */
+        public void setTickInterval(long tickNanos) {
+            this.tickNanos = tickNanos;
+        }
+
+        /**
+        * Sets the number of ticks after which the session finishes
+        *
+        * @param tickLimit The most ticks to run, or 0 for no limit
+        */
+        public void setTickLimit(long tickLimit) {
+            this.tickLimit = tickLimit;
+        }
+
+        /**
+        * Sets the CPU time after which the session finishes. It is checked
+        * between slices, so a session may overrun by up to one slice
+        *
+        * @param cpuBudgetNanos The most nanoseconds of CPU time to use, or
+        * 0 for no limit
+        */
+        public void setCpuBudget(long cpuBudgetNanos) {
+            this.cpuBudgetNanos = cpuBudgetNanos;
+        }
+
+        /**
+        * Gets the number the farm gave the session
+        *
+        * @return id The session's number, unique within its farm
+        */
+        public int getId() {
+            return id;
+        }
+
+        /**
+        * Gets the game the session plays
+        *
+        * @return engine The session's GameEngine
+        */
+        public GameEngine getEngine() {
+            return engine;
+        }
+
+        /**
+        * Gets what the session is doing
+        *
+        * @return state QUEUED, STEPPING, PAUSED or FINISHED
+        */
+        public int getState() {
+            return state;
+        }
+
+        /**
+        * Gets the number of ticks the farm has run
+        *
+        * @return ticksRun The number of ticks stepped by the session
+        */
+        public long getTicksRun() {
+            return ticksRun;
+        }
+
+        /**
+        * Gets the CPU time the session has used, or the wall clock time it
+        * was stepped for if the JVM cannot measure CPU time
+        *
+        * @return cpuNanos The nanoseconds spent stepping the session
+        */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        /**
+        * Gets what the bot or game threw, which finished the session. Errors
+        * such as a StackOverflowError are caught and kept here too
+        *
+        * @return failure The Throwable thrown, or null if there was none
+        */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+        * Gets the time left until the session's next tick is due
+        *
+        * @param unit The unit of the time returned
+        * @return long The time until the next tick, 0 or less if it is due
+        */
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(nextTick - System.nanoTime(),
+                                                    TimeUnit.NANOSECONDS);
+        }
+
+        /**
+        * Orders sessions by when their next ticks are due
+        *
+        * @param other The session to compare with
+        * @return int Less than 0 if this session is due first
+        */
+        public int compareTo(Delayed other) {
+            return Long.compare(nextTick, ((Session) other).nextTick);
+        }
+
+        /**
+        * Runs the bot and steps the game for up to SLICE_TICKS ticks, or for
+        * as many as are due if the session is paced. Anything thrown ends
+        * the slice and finishes the session
+        */
+        private void runSlice() {
+            try {
+                for (int i = 0; i < SLICE_TICKS && !isDone(); i++) {
+                    if (tickNanos > 0) {
+                        long now = System.nanoTime();
+                        if (now - nextTick < 0) {
+                            break;
+                        }
+                        nextTick += tickNanos;
+                        if (now - nextTick > MAX_LAG_NANOS) {
+                            nextTick = now + tickNanos;
+                        }
+                    }
+                    if (bot != null) {
+                        bot.act(engine);
+                    }
+                    engine.step();
+                    ticksRun++;
+                }
+            } catch (Throwable e) {
+                failure = e;
+            }
+            if (tickNanos == 0) {
+                nextTick = System.nanoTime();
+            }
+        }
+
+        private boolean isDone() {
+            return failure != null || !engine.isRunning()
+                        || (tickLimit > 0 && ticksRun >= tickLimit)
+                        || (cpuBudgetNanos > 0 && cpuNanos >= cpuBudgetNanos);
+        }
+    }
+}
@@ -1,9 +1,7 @@
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
 import java.awt.BasicStroke;
 import java.awt.Color;
-import java.util.Collections;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -12,22 +10,35 @@ import javax.swing.JPanel;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.Point;
-import java.util.Random;
 import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import javax.swing.Timer;
 
 public class GamePanel extends JPanel {
     public static final int HEIGHT = 700, WIDTH = 700;
     public static final Rectangle BOUNDS = new Rectangle(HEIGHT, WIDTH);
+    public static final int MAX_STEPS_PER_FRAME = 64;
+    public static final long MAX_FRAME_NANOS = 20000000L;
+
+    private static final long TICK_NANOS = GameEngine.TICK_MILLIS * 1000000L;
+
+    private static final Stroke PATH_STROKE = new BasicStroke(7);
+    private static final Color VALID_PREVIEW = new Color(0, 160, 0, 90);
+    private static final Color INVALID_PREVIEW = new Color(200, 0, 0, 90);
 
     private InputPanel inputPanel;
-    private ArrayList<Line> path;
-    private ArrayList<Tower> towers;
-    private ArrayList<Monster> monsters;
+    private GameEngine engine;
     private Timer gameTimer;
-    private Timer waveTimer;
-    private int waveNumber;
-    private boolean previouslyFastForward;
+    private long lastFrameTime, pendingNanos;
+
+    private BufferedImage staticLayer;
+    private boolean staticLayerValid;
+    private int minX, minY, maxX, maxY;
+
+    private Tower preview;
+    private boolean previewValid;
 
     /**
     * Constructs the Game Panel GUI for the Tower Defense Game
@@ -35,145 +46,265 @@ public class GamePanel extends JPanel {
     * @param input The InputPanel for the Tower Defense Game
     */
     public GamePanel(InputPanel input) {
+        this(input, new GameEngine());
+    }
+
+    /**
+    * Constructs the Game Panel GUI for a Tower Defense Game that is already
+    * set up
+    *
+    * @param input The InputPanel for the Tower Defense Game
+    * @param engine The GameEngine running the game
+    */
+    public GamePanel(InputPanel input, GameEngine engine) {
         inputPanel = input;
-        waveNumber = 0;
+        this.engine = engine;
+        inputPanel.assignEngine(engine);
+        inputPanel.assignGamePanel(this);
 
-        towers = new ArrayList<Tower>();
-        monsters = new ArrayList<Monster>();
-        constructPath();
         setPreferredSize(new Dimension(HEIGHT, WIDTH));
         setBackground(Color.WHITE);
 
-        addMouseListener(new ClickListener());
-
-        int xStart = (int) path.get(0).getStart().getX();
-        int yStart = (int) path.get(0).getStart().getY();
+        ClickListener clickListener = new ClickListener();
+        addMouseListener(clickListener);
+        addMouseMotionListener(clickListener);
 
-        waveTimer = new Timer(150, new WaveListener(xStart, yStart));
-        inputPanel.assignWaveTimer(waveTimer);
-
-        gameTimer = new Timer(30, new GameListener());
+        gameTimer = new Timer(GameEngine.TICK_MILLIS, new GameListener());
         gameTimer.start();
 
-        previouslyFastForward = false;
+        lastFrameTime = System.nanoTime();
+        pendingNanos = 0;
+        staticLayerValid = false;
+        minX = Integer.MAX_VALUE;
     }
 
     /**
-    * Deals with the drawing of the components for the GUI
+    * Deals with the drawing of the components for the GUI. The Towers and
+    * path only change when a Tower is placed, so they are drawn once into an
+    * image that is copied to the screen, and only the Monsters are drawn
+    * each time. Each paint is timed with a PaintEvent for Java Flight
+    * Recorder
     *
     * @param g The Graphics object used to draw things to the screen
     */
     public void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setStroke(new BasicStroke(7));
-        drawAll(g);
+        long start = System.nanoTime();
+        boolean redrawn = !staticLayerValid;
+        if (redrawn) {
+            drawStaticLayer();
+        }
+        g.drawImage(staticLayer, 0, 0, null);
+        drawMonsters(g, g.getClipBounds());
+        drawPreview(g);
+        PaintEvent.record(engine, redrawn, start);
     }
 
     /**
-    * Make the Towers fire to the farthest along Monster if in range
+    * Swaps in a different game, such as one loaded from a snapshot. The
+    * game being replaced stops recording its inputs
+    *
+    * @param engine The GameEngine running the new game
     */
-    public void fireTowers() {
-        for (int i = 0; i < towers.size(); i++) {
-            for (int j = 0; j < monsters.size(); j++) {
-                Monster curMonster = monsters.get(j);
-                if (i < towers.size() && towers.get(i).canReach(curMonster)) {
-                    towers.get(i).fire(curMonster);
-                    i++;
-                    j = -1;
-                }
-            }
+    public void setEngine(GameEngine engine) {
+        if (this.engine.getInputRecorder() != null) {
+            this.engine.getInputRecorder().close();
         }
+        if (this.engine.getServerConnection() != null) {
+            this.engine.getServerConnection().close();
+        }
+        this.engine = engine;
+        inputPanel.assignEngine(engine);
+        lastFrameTime = System.nanoTime();
+        pendingNanos = 0;
+        invalidateStaticLayer();
     }
 
     /**
-    * Checks for Monster deaths and reaching the end. It gathers the amount
-    * of score lost from unkilled Monsters and money generated from killed
-    * monsters
+    * Gets the game shown in this panel
     *
-    * @return int[] The array of score lost and money gained
+    * @return engine The GameEngine running the game
+    */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+    * Marks the Towers and path as changed so that they are drawn again on
+    * the next repaint
+    */
+    public void invalidateStaticLayer() {
+        staticLayerValid = false;
+        repaint();
+    }
+
+    /**
+    * Repaints only the part of the panel where Monsters were drawn last time
+    * or are now, since nothing else changes between ticks
     */
-    public int[] checkForDeath() {
-        int[] stats = new int[2];
+    private void repaintMonsters() {
+        int oldMinX = minX, oldMinY = minY, oldMaxX = maxX, oldMaxY = maxY;
+        int margin = monsterMargin();
+        MonsterStore monsters = engine.getMonsters();
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
         for (int i = 0; i < monsters.size(); i++) {
-            if (monsters.get(i).didReachEnd()) {
-                stats[0] += monsters.get(i).getScoreLoss();
-                monsters.remove(i);
-                i--;
-            } else if (monsters.get(i).isDead()) {
-                stats[1] += monsters.get(i).getMoneyValue();
-                monsters.remove(i);
-                i--;
-            }
+            minX = Math.min(minX, monsters.getX(i));
+            minY = Math.min(minY, monsters.getY(i));
+            maxX = Math.max(maxX, monsters.getX(i));
+            maxY = Math.max(maxY, monsters.getY(i));
+        }
+        if (oldMinX != Integer.MAX_VALUE) {
+            repaint(oldMinX - margin, oldMinY - margin,
+                                    oldMaxX - oldMinX + 2 * margin,
+                                    oldMaxY - oldMinY + 2 * margin);
+        }
+        if (minX != Integer.MAX_VALUE) {
+            repaint(minX - margin, minY - margin,
+                                    maxX - minX + 2 * margin,
+                                    maxY - minY + 2 * margin);
         }
-        return stats;
     }
 
     /**
-    * Moves all Monsters in the game, also sends new waves and deals with
-    * fast forward needs
+    * Shows where a Tower of the selected type would go if the mouse were
+    * clicked, in green if it can be placed there and red if not
+    *
+    * @param mouse The location of the mouse, or null to hide the preview
     */
-    public void moveAll() {
-        if (inputPanel.isInFastForward() && !previouslyFastForward) {
-            gameTimer.stop();
-            gameTimer = new Timer(1, new GameListener());
-            previouslyFastForward = true;
-            gameTimer.start();
-        } else if (!inputPanel.isInFastForward() && previouslyFastForward) {
-            gameTimer.stop();
-            gameTimer = new Timer(30, new GameListener());
-            previouslyFastForward = false;
-            gameTimer.start();
+    private void updatePreview(Point mouse) {
+        repaintPreview();
+        if (mouse == null) {
+            preview = null;
+            return;
         }
-        if (inputPanel.getWaveNumber() > waveNumber) {
-            waveNumber++;
-            sendWave();
+        Point loc = new Point((int) mouse.getX() - Tower.TOWER_SIZE / 2,
+                                    (int) mouse.getY() - Tower.TOWER_SIZE / 2);
+        preview = GameEngine.createTower(loc,
+                                            inputPanel.getCurrentTowerType());
+        previewValid = engine.canPlaceTower(loc)
+                                    && engine.getMoney() >= preview.getCost();
+        repaintPreview();
+    }
+
+    private void repaintPreview() {
+        if (preview != null) {
+            int r = preview.getRadius();
+            repaint(preview.getX() + Tower.TOWER_SIZE / 2 - r,
+                        preview.getY() + Tower.TOWER_SIZE / 2 - r,
+                        2 * r + 1, 2 * r + 1);
         }
-        for (Monster monster : monsters) {
-            monster.setBeingAttacked(false);
-            monster.move(path);
+    }
+
+    private void drawPreview(Graphics g) {
+        if (preview == null) {
+            return;
         }
+        int r = preview.getRadius();
+        g.setColor(previewValid ? VALID_PREVIEW : INVALID_PREVIEW);
+        g.fillOval(preview.getX() + Tower.TOWER_SIZE / 2 - r,
+                    preview.getY() + Tower.TOWER_SIZE / 2 - r, 2 * r, 2 * r);
+        g.fillRect(preview.getX(), preview.getY(), Tower.TOWER_SIZE,
+                                                        Tower.TOWER_SIZE);
     }
 
-    private void orderMonsters() {
-        Collections.sort(monsters);
+    /**
+    * Gets how far from its center a Monster can be drawn, which grows if a
+    * larger type of Monster is registered
+    *
+    * @return int The radius of the largest Monster plus one pixel
+    */
+    private int monsterMargin() {
+        return MonsterType.getMaxRadius() + 1;
     }
 
-    private void drawAll(Graphics g) {
-        for (Tower tower : towers) {
-            tower.drawReach(g);
+    private void drawStaticLayer() {
+        if (staticLayer == null) {
+            staticLayer = new BufferedImage(WIDTH, HEIGHT,
+                                                BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g2 = staticLayer.createGraphics();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, WIDTH, HEIGHT);
+        g2.setStroke(PATH_STROKE);
+        for (Tower tower : engine.getTowers()) {
+            tower.drawReach(g2);
         }
 
-        for (Tower tower : towers) {
-            tower.drawTower(g);
+        for (Tower tower : engine.getTowers()) {
+            tower.drawTower(g2);
         }
 
-        for (Line line : path) {
-            line.draw(g);
+        for (Line line : engine.getPath()) {
+            line.draw(g2);
         }
+        g2.dispose();
+        staticLayerValid = true;
+    }
 
-        for (Monster monster : monsters) {
-            monster.draw(g);
+    private void drawMonsters(Graphics g, Rectangle clip) {
+        MonsterStore monsters = engine.getMonsters();
+        int margin = monsterMargin();
+        for (int i = 0; i < monsters.size(); i++) {
+            int x = monsters.getX(i);
+            int y = monsters.getY(i);
+            if (clip == null || (x + margin >= clip.x
+                            && x - margin <= clip.x + clip.width
+                            && y + margin >= clip.y
+                            && y - margin <= clip.y + clip.height)) {
+                MonsterType.get(monsters.getType(i)).draw(g, x, y,
+                                                monsters.isBeingAttacked(i));
+            }
         }
     }
 
-    private void sendWave() {
-        if (!(waveTimer != null && waveTimer.isRunning())) {
-            waveTimer.start();
+    /**
+    * Runs as many fixed timesteps as the time since the last frame and the
+    * chosen speed call for, so that 4x runs four steps for every step at
+    * normal speed however often frames arrive. At most MAX_STEPS_PER_FRAME
+    * steps are run to catch up, and time beyond that is dropped rather than
+    * carried into later frames. At MAX_SPEED the engine is stepped until
+    * MAX_FRAME_NANOS of the frame has been used. A game copied from a
+    * server is not stepped here but brought up to date from the server
+    */
+    private void advanceEngine() {
+        GameClient server = engine.getServerConnection();
+        if (server != null) {
+            followServer(server);
+            return;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - lastFrameTime;
+        lastFrameTime = now;
+        int speed = inputPanel.getSpeed();
+        if (speed == InputPanel.MAX_SPEED) {
+            pendingNanos = 0;
+            long deadline = now + MAX_FRAME_NANOS;
+            do {
+                engine.step();
+            } while (engine.isRunning() && System.nanoTime() < deadline);
+            return;
         }
+        pendingNanos += elapsed * speed;
+        int steps = (int) Math.min(pendingNanos / TICK_NANOS,
+                                                        MAX_STEPS_PER_FRAME);
+        pendingNanos = Math.min(pendingNanos - steps * TICK_NANOS, TICK_NANOS);
+        engine.step(steps);
     }
 
-    private void constructPath() {
-        path = new ArrayList<Line>(5);
-        path.add(new Line(700, 600, 200, 600));
-        path.add(new Line(path.get(path.size() - 1).getEnd(),
-                                                        new Point(200, 100)));
-        path.add(new Line(path.get(path.size() - 1).getEnd(),
-                                                        new Point(600, 100)));
-        path.add(new Line(path.get(path.size() - 1).getEnd(),
-                                                        new Point(600, 400)));
-        path.add(new Line(path.get(path.size() - 1).getEnd(),
-                                                        new Point(0, 400)));
+    private void followServer(GameClient server) {
+        ArrayList<Line> path = engine.getPath();
+        int towerCount = engine.getTowers().size();
+        if (!server.poll()) {
+            JOptionPane.showMessageDialog(null, "Lost connection to the "
+                                                                + "server");
+            System.exit(0);
+        }
+        if (engine.getPath() != path
+                                || engine.getTowers().size() != towerCount) {
+            invalidateStaticLayer();
+        }
     }
 
     private class GameListener implements ActionListener {
@@ -185,18 +316,18 @@ public class GamePanel extends JPanel {
         * Timer
         */
         public void actionPerformed(ActionEvent e) {
-            if (inputPanel.isStillPlaying() || !monsters.isEmpty()) {
-                moveAll();
-                orderMonsters();
-                fireTowers();
-                inputPanel.updateStats(checkForDeath());
-                repaint();
+            if (engine.isRunning()) {
+                advanceEngine();
+                repaintMonsters();
             } else {
-                if (waveNumber > 50 && monsters.isEmpty()) {
+                if (engine.getInputRecorder() != null) {
+                    engine.getInputRecorder().close();
+                }
+                if (engine.isWon()) {
                     JOptionPane.showMessageDialog(null, "You won! "
                                                         + "Congratulations!");
                     System.exit(0);
-                } else if (inputPanel.getScore() <= 0) {
+                } else if (engine.isLost()) {
                     JOptionPane.showMessageDialog(null, "You Lost! Better "
                                                         + "luck next time!");
                     System.exit(0);
@@ -205,113 +336,43 @@ public class GamePanel extends JPanel {
         }
     }
 
-    private class WaveListener implements ActionListener {
-
-        private int waveComparator, xStart, yStart;
-        private int numTimes;
-
-        /**
-        * The WaveListener constructor
-        *
-        * @param xStart The starting x coordinate of Monsters being created at
-        * the start of a wave
-        * @param yStart The starting y coordinate of Monsters being created at
-        * the start of a wave
-        */
-        public WaveListener(int xStart, int yStart) {
-            this.waveComparator = 2 * waveNumber;
-            this.xStart = xStart;
-            this.yStart = yStart;
-            numTimes = 0;
-        }
+    private class ClickListener extends MouseAdapter {
 
         /**
-        * Required actionPerformed method
+        * Required mousePressed method
         *
-        * @param e The ActionEvent that happens with each tick of the wave
-        * Timer which releases Monsters during the start of a new wave
-        * at structured time intervals
+        * @param e The MouseEvent that happens with a click of the Mouse in
+        * the Game Panel
         */
-        public void actionPerformed(ActionEvent e) {
-            numTimes++;
-            waveComparator = waveNumber * 2;
-            Random rand = new Random();
-            if (numTimes > 10) {
-                waveTimer.stop();
-                numTimes = 0;
-            } else {
-                if (waveComparator < 6) {
-                    numTimes += (10 - 2 * waveComparator);
-                    monsters.add(new RegularMonster(xStart, yStart));
-                } else {
-                    int random = rand.nextInt(waveComparator) + 1;
-                    if (random < 10 && waveNumber < 15) {
-                        monsters.add(new RegularMonster(xStart, yStart));
-                    } else if (random < 20 && waveNumber < 20) {
-                        monsters.add(new FastMonster(xStart, yStart));
-                    } else if (random < 30 && waveNumber < 35) {
-                        monsters.add(new FasterMonster(xStart, yStart));
-                    } else if (random < 50 && waveNumber < 30) {
-                        //numTimes++;
-                        monsters.add(new HardMonster(xStart, yStart));
-                    } else if (random < 80 && waveNumber < 40) {
-                        numTimes++;
-                        monsters.add(new IntenseMonster(xStart, yStart));
-                    } else {
-                        if (waveNumber < 45) {
-                            numTimes += 5;
-                        } else if (waveNumber < 48) {
-                            numTimes += 3;
-                        } else {
-                            numTimes++;
-                        }
-                        monsters.add(new UltimateMonster(xStart, yStart));
-                    }
-                }
+        public void mousePressed(MouseEvent e) {
+            Point originalLoc = e.getPoint();
+            Point loc = new Point((int) originalLoc.getX() - 12,
+                                                (int) originalLoc.getY() - 12);
+            if (engine.placeTower(loc, inputPanel.getCurrentTowerType())
+                                                                    != null) {
+                invalidateStaticLayer();
             }
+            updatePreview(originalLoc);
         }
-    }
-
-    private class ClickListener extends MouseAdapter {
 
         /**
-        * Creates a new Tower based on location and Tower type
+        * Required mouseMoved method
         *
-        * @param p The location of the new Tower
-        * @param tower The int representation of the new Tower type
-        * @return The newly constructed tower
+        * @param e The MouseEvent that happens when the Mouse moves over the
+        * Game Panel
         */
-        public Tower createTower(Point p, int tower) {
-            Tower result = null;
-            if (tower == Tower.BASIC_TOWER) {
-                result = new BasicTower(p);
-            } else if (tower == Tower.ADVANCED_TOWER) {
-                result = new AdvancedTower(p);
-            }
-            if (!result.canPlaceOnMap(towers)
-                            || !inputPanel.removeFromMoney(result.getCost())) {
-                return null;
-            } else {
-                return result;
-            }
+        public void mouseMoved(MouseEvent e) {
+            updatePreview(e.getPoint());
         }
 
         /**
-        * Required mousePressed method
+        * Required mouseExited method
         *
-        * @param e The MouseEvent that happens with a click of the Mouse in
-        * the Game Panel
+        * @param e The MouseEvent that happens when the Mouse leaves the Game
+        * Panel
         */
-        public void mousePressed(MouseEvent e) {
-            Point originalLoc = e.getPoint();
-            Point loc = new Point((int) originalLoc.getX() - 12,
-                                                (int) originalLoc.getY() - 12);
-            int type = inputPanel.getCurrentTowerType();
-            Tower newTower = createTower(loc, type);
-            if (newTower != null) {
-                towers.add(newTower);
-            }
-            repaint();
+        public void mouseExited(MouseEvent e) {
+            updatePreview(null);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+import java.util.Random;
+
+/**
+ * GameRandom produces exactly the same numbers as java.util.Random for the
+ * same seed, but keeps its state in a plain field that can be read and
+ * restored, so that a saved game continues with the same random choices it
+ * would have made had it never been saved. It is only used by one thread at
+ * a time, so it skips the atomic updates java.util.Random makes
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameRandom extends Random {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    /**
+    * Constructs a GameRandom with a seed
+    *
+    * @param seed The seed, used the same way as by java.util.Random
+    */
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+    * Resets the generator to a seed, as java.util.Random does
+    *
+    * @param seed The new seed
+    */
+    public void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+    * Gets the internal state of the generator
+    *
+    * @return state The 48 bit state the next number is made from
+    */
+    public long getState() {
+        return state;
+    }
+
+    /**
+    * Restores the internal state of the generator
+    *
+    * @param state A state returned by getState
+    */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+
+    /**
+    * Generates the next random bits
+    *
+    * @param bits The number of random bits to return
+    * @return int The random bits
+    */
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
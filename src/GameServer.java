@@ -0,0 +1,538 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * GameServer runs a game headless and lets GameClients play or watch it
+ * over TCP. One thread does everything: a single Selector accepts
+ * connections, reads Tower placement and wave commands and writes to
+ * clients whose sockets were full, in between stepping the game every
+ * TICK_MILLIS
+ *
+ * After each tick the state is encoded once by a StateEncoder into a frame
+ * held in a pooled direct buffer, and that same buffer is queued for every
+ * client and written straight to each socket with a gathering write, so
+ * each extra client costs a socket write rather than an encoding or a copy.
+ * Every KEYFRAME_INTERVAL frames is a keyframe holding the whole game and
+ * the rest are deltas. A client that just connected gets a full frame of
+ * its own. A client with MAX_QUEUED_FRAMES frames still unsent is not
+ * buffered for any further: its queue is dropped and it skips every frame
+ * until the next keyframe, which brings it back up to date
+ *
+ * Usage: java GameServer [--port n] [--seed n] [--waves waveFile]
+ *                        [--firing-threads n]
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameServer implements Runnable {
+
+    public static final int KEYFRAME_INTERVAL = 100;
+    public static final int MAX_QUEUED_FRAMES = 8;
+    public static final int MIN_FRAME_CAPACITY = 4096;
+    public static final long MAX_LAG_NANOS = 1000000000L;
+
+    private static final long TICK_NANOS = GameEngine.TICK_MILLIS * 1000000L;
+    private static final int DELTA = 0, KEYFRAME = 1, FULL = 2;
+
+    private GameEngine engine;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private StateEncoder encoder;
+    private ArrayList<Frame> framePool;
+    private ByteBuffer[] gather;
+    private ArrayList<Connection> connections;
+    private volatile boolean running;
+    private boolean changed, joining;
+    private long framesSent, keyframesSent, bytesEncoded, bytesWritten;
+    private long framesSkipped;
+    private int sendBufferSize;
+
+    /**
+    * Opens a server for a game on a port of this machine
+    *
+    * @param engine The game to run
+    * @param port The port to listen on, or 0 for any free port
+    * @throws IOException If the port cannot be opened
+    */
+    public GameServer(GameEngine engine, int port) throws IOException {
+        this.engine = engine;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        encoder = new StateEncoder();
+        framePool = new ArrayList<Frame>();
+        gather = new ByteBuffer[MAX_QUEUED_FRAMES + 1];
+        connections = new ArrayList<Connection>();
+        changed = true;
+        joining = false;
+        sendBufferSize = 0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = NetProtocol.DEFAULT_PORT;
+        long seed = new Random().nextLong();
+        WaveSchedule schedule = WaveSchedule.createDefault();
+        int firingThreads = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[i + 1]);
+            } else if (args[i].equals("--waves")) {
+                schedule = WaveSchedule.load(new File(args[i + 1]));
+            } else if (args[i].equals("--firing-threads")) {
+                firingThreads = Integer.parseInt(args[i + 1]);
+            }
+        }
+        GameEngine engine = new GameEngine(seed, schedule);
+        engine.setFiringThreads(firingThreads);
+        GameServer server = new GameServer(engine, port);
+        System.out.println("Serving game " + seed + " on port "
+                                                        + server.getPort());
+        server.run();
+    }
+
+    /**
+    * Steps the game every TICK_MILLIS and serves clients in between until
+    * stop is called, then closes the server. If the machine cannot keep up,
+    * ticks are dropped rather than run in a burst once it has fallen more
+    * than MAX_LAG_NANOS behind
+    */
+    public void run() {
+        running = true;
+        long nextTick = System.nanoTime();
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                pollNetwork(wait / 1000000);
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    nextTick += TICK_NANOS;
+                    if (now - nextTick > MAX_LAG_NANOS) {
+                        nextTick = now + TICK_NANOS;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server stopped: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+    * Asks a running server to stop. Can be called from any thread
+    */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+    * Accepts new clients, reads their commands and writes what could not be
+    * written before, waiting up to a time for something to happen
+    *
+    * @param timeoutMillis The longest time to wait, or 0 or less not to wait
+    * @throws IOException If the server socket fails
+    */
+    public void pollNetwork(long timeoutMillis) throws IOException {
+        if (timeoutMillis > 0) {
+            selector.select(timeoutMillis);
+        } else {
+            selector.selectNow();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    read(connection);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush(connection);
+                }
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    /**
+    * Steps the game once and sends the new state to every client. Nothing
+    * is sent if the game is over and nothing changed since the last frame
+    */
+    public void tick() {
+        boolean ran = engine.isRunning();
+        engine.step();
+        if (!ran && !changed && !joining) {
+            return;
+        }
+        boolean keyframe = framesSent % KEYFRAME_INTERVAL == 0;
+        Frame frame = encode(keyframe ? KEYFRAME : DELTA);
+        Frame full = null;
+        if (joining && !keyframe) {
+            full = encode(FULL);
+        }
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            Connection connection = connections.get(i);
+            queue(connection, connection.synced || full == null ? frame
+                                                                : full);
+            connection.synced = true;
+        }
+        release(frame);
+        if (full != null) {
+            release(full);
+        }
+        framesSent++;
+        if (keyframe) {
+            keyframesSent++;
+        }
+        changed = false;
+        joining = false;
+    }
+
+    /**
+    * Closes every connection and the server socket
+    */
+    public void close() {
+        running = false;
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            disconnect(connections.get(i));
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Could not close server: " + e.getMessage());
+        }
+    }
+
+    /**
+    * Sets the socket send buffer of clients that connect from now on. The
+    * smaller it is, the sooner frames queue up for a client that stops
+    * reading, and the sooner it is made to skip to a keyframe
+    *
+    * @param sendBufferSize The size in bytes, or 0 for the system default
+    */
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+    * Gets the port the server is listening on
+    *
+    * @return int The local port of the server socket
+    */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+    * Gets the game the server runs
+    *
+    * @return engine The server's GameEngine
+    */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+    * Gets the number of clients connected
+    *
+    * @return int The number of open connections
+    */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+    * Gets the number of frames sent to clients, counting each tick once
+    * however many clients there are
+    *
+    * @return framesSent The number of frames broadcast
+    */
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+    * Gets the number of frames sent that were keyframes
+    *
+    * @return keyframesSent The number of keyframes broadcast
+    */
+    public long getKeyframesSent() {
+        return keyframesSent;
+    }
+
+    /**
+    * Gets the number of bytes encoded, counting each frame once however
+    * many clients it was sent to
+    *
+    * @return bytesEncoded The number of bytes encoded
+    */
+    public long getBytesEncoded() {
+        return bytesEncoded;
+    }
+
+    /**
+    * Gets the number of bytes written to every client together
+    *
+    * @return bytesWritten The number of bytes written to sockets
+    */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+    * Gets the number of frames that slow clients skipped, counting each
+    * client separately
+    *
+    * @return framesSkipped The number of frames not sent to slow clients
+    */
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            if (sendBufferSize > 0) {
+                channel.socket().setSendBufferSize(sendBufferSize);
+            }
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ,
+                                                                connection);
+            connections.add(connection);
+            joining = true;
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            disconnect(connection);
+            return;
+        }
+        in.flip();
+        int length;
+        while ((length = NetProtocol.nextMessageLength(in,
+                                        NetProtocol.MAX_COMMAND_SIZE)) >= 0) {
+            ByteBuffer message = in.duplicate();
+            message.position(in.position() + 4);
+            message.limit(in.position() + 4 + length);
+            in.position(message.limit());
+            try {
+                runCommand(connection, message);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("command ended early");
+            }
+        }
+        in.compact();
+    }
+
+    private void runCommand(Connection connection, ByteBuffer message)
+                                                        throws IOException {
+        int type = message.get();
+        if (type == NetProtocol.SPECTATE) {
+            connection.spectator = true;
+            return;
+        }
+        if (connection.spectator) {
+            throw new IOException("spectators cannot send commands");
+        }
+        if (type == NetProtocol.PLACE_TOWER) {
+            int towerType = message.get();
+            int x = NetProtocol.getSignedVarInt(message);
+            int y = NetProtocol.getSignedVarInt(message);
+            engine.placeTower(new Point(x, y), towerType);
+        } else if (type == NetProtocol.SEND_WAVE) {
+            engine.sendNextWave();
+        } else {
+            throw new IOException("unknown command " + type);
+        }
+        changed = true;
+    }
+
+    private Frame encode(int kind) {
+        int size = StateEncoder.getMaxFrameSize(engine)
+                                                    + NetProtocol.HEADER_SIZE;
+        Frame frame = null;
+        for (int i = framePool.size() - 1; i >= 0; i--) {
+            if (framePool.get(i).data.capacity() >= size) {
+                frame = framePool.remove(i);
+                break;
+            }
+        }
+        if (frame == null) {
+            int capacity = Integer.highestOneBit(
+                                Math.max(size, MIN_FRAME_CAPACITY) * 2 - 1);
+            frame = new Frame(ByteBuffer.allocateDirect(capacity));
+        }
+        ByteBuffer data = frame.data;
+        data.clear();
+        int start = NetProtocol.startMessage(data, NetProtocol.FRAME);
+        if (kind == DELTA) {
+            encoder.encodeDelta(engine, data);
+        } else if (kind == KEYFRAME) {
+            encoder.encodeKeyframe(engine, data);
+        } else {
+            encoder.encodeFull(engine, data);
+        }
+        NetProtocol.finishMessage(data, start);
+        frame.size = data.position();
+        frame.keyframe = kind != DELTA;
+        frame.references = 1;
+        bytesEncoded += frame.size;
+        return frame;
+    }
+
+    private void release(Frame frame) {
+        frame.references--;
+        if (frame.references == 0) {
+            framePool.add(frame);
+        }
+    }
+
+    private void queue(Connection connection, Frame frame) {
+        if (connection.skipping && !frame.keyframe) {
+            framesSkipped++;
+            return;
+        }
+        if (connection.frames.size() >= MAX_QUEUED_FRAMES) {
+            skip(connection);
+            if (!frame.keyframe) {
+                framesSkipped++;
+                return;
+            }
+        }
+        connection.skipping = false;
+        frame.references++;
+        connection.frames.addLast(frame);
+        try {
+            flush(connection);
+        } catch (IOException e) {
+            disconnect(connection);
+        }
+    }
+
+    /**
+    * Drops every frame queued for a client that has fallen too far behind,
+    * except one it has started to receive, and has it skip frames until
+    * the next keyframe
+    */
+    private void skip(Connection connection) {
+        Frame started = null;
+        if (connection.offset > 0) {
+            started = connection.frames.pollFirst();
+        }
+        while (!connection.frames.isEmpty()) {
+            release(connection.frames.pollFirst());
+            framesSkipped++;
+        }
+        if (started != null) {
+            connection.frames.addLast(started);
+        }
+        connection.skipping = true;
+    }
+
+    private void flush(Connection connection) throws IOException {
+        int count = 0;
+        for (Frame frame : connection.frames) {
+            ByteBuffer data = frame.data;
+            data.limit(frame.size);
+            data.position(count == 0 ? connection.offset : 0);
+            gather[count++] = data;
+        }
+        if (count > 0) {
+            long written = connection.channel.write(gather, 0, count);
+            bytesWritten += written;
+            written += connection.offset;
+            while (!connection.frames.isEmpty()
+                            && written >= connection.frames.peekFirst().size) {
+                written -= connection.frames.peekFirst().size;
+                release(connection.frames.pollFirst());
+            }
+            connection.offset = (int) written;
+            Arrays.fill(gather, 0, count, null);
+        }
+        int ops = SelectionKey.OP_READ;
+        if (!connection.frames.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if (connection.key.interestOps() != ops) {
+            connection.key.interestOps(ops);
+        }
+    }
+
+    private void disconnect(Connection connection) {
+        connections.remove(connection);
+        connection.key.cancel();
+        while (!connection.frames.isEmpty()) {
+            release(connection.frames.pollFirst());
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close connection: "
+                                                        + e.getMessage());
+        }
+    }
+
+    private static class Frame {
+
+        private ByteBuffer data;
+        private int size, references;
+        private boolean keyframe;
+
+        public Frame(ByteBuffer data) {
+            this.data = data;
+        }
+    }
+
+    private static class Connection {
+
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in;
+        private ArrayDeque<Frame> frames;
+        private int offset;
+        private boolean synced, skipping, spectator;
+
+        public Connection(SocketChannel channel) {
+            this.channel = channel;
+            in = ByteBuffer.allocate(NetProtocol.MAX_COMMAND_SIZE * 4);
+            frames = new ArrayDeque<Frame>(MAX_QUEUED_FRAMES + 1);
+            offset = 0;
+            synced = false;
+            skipping = false;
+            spectator = false;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameSnapshot saves a whole game to a binary file and loads it back. The
+ * file is memory mapped, so the Monster columns are copied straight between
+ * the arrays of the MonsterStore and the file without going through a
+ * stream. A snapshot holds the random number generator's state, so a loaded
+ * game plays on exactly as the saved one would have
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class GameSnapshot {
+
+    public static final int MAGIC = 0x54445353;
+    public static final int VERSION = 4;
+
+    private static final int HEADER_SIZE = 8;
+
+    /**
+    * Saves a game to a file, replacing anything already in it
+    *
+    * @param engine The game to save
+    * @param file The file to save to
+    * @throws IOException If the file cannot be written
+    */
+    public static void save(GameEngine engine, File file) throws IOException {
+        int size = HEADER_SIZE + engine.getSnapshotSize();
+        FileChannel channel = FileChannel.open(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            MappedByteBuffer buffer = channel.map(
+                                    FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            engine.writeSnapshot(buffer);
+            buffer.force();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+    * Loads a game saved by save
+    *
+    * @param file The file to load from
+    * @return GameEngine The saved game, ready to continue
+    * @throws IOException If the file cannot be read or is not a snapshot
+    */
+    public static GameEngine load(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a game snapshot");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                            channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a game snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version "
+                                                                + version);
+            }
+            return GameEngine.readSnapshot(buffer);
+        } catch (RuntimeException e) {
+            throw new IOException(file + " is a damaged game snapshot", e);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import javax.swing.JPanel;
+
+/**
+ * HudPanel draws the wave number, score, money, number of Monsters on the
+ * map and the game's tick rate straight onto a panel of fixed size. The
+ * values are plain fields, so setting one costs nothing unless it changed,
+ * and the changes since the last frame are painted together by a single
+ * repaint when flush is called. Unlike a JLabel, changing a value never
+ * lays out the panels around it again
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class HudPanel extends JPanel {
+
+    public static final int HUD_WIDTH = 200, HUD_HEIGHT = 290;
+
+    private static final Font LARGE_FONT = new Font("Serif", Font.PLAIN, 25);
+    private static final Font MEDIUM_FONT = new Font("Serif", Font.PLAIN, 20);
+    private static final Font SMALL_FONT = new Font("Serif", Font.PLAIN, 15);
+
+    private int score, money, waveNumber, monsterCount, ticksPerSecond;
+    private boolean changed;
+
+    /**
+    * Constructs a HUD showing the values a new game starts with
+    */
+    public HudPanel() {
+        Dimension size = new Dimension(HUD_WIDTH, HUD_HEIGHT);
+        setPreferredSize(size);
+        setMinimumSize(size);
+        setMaximumSize(size);
+        setAlignmentX(LEFT_ALIGNMENT);
+        setOpaque(false);
+        score = GameEngine.STARTING_SCORE;
+        money = GameEngine.STARTING_MONEY;
+        waveNumber = 0;
+        monsterCount = 0;
+        ticksPerSecond = 0;
+        changed = false;
+    }
+
+    /**
+    * Paints every value of the HUD
+    *
+    * @param g The Graphics object used to draw things to the screen
+    */
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        g.setColor(getForeground());
+        g.setFont(MEDIUM_FONT);
+        g.drawString("Wave Number: " + waveNumber, 0, 120);
+        g.setFont(LARGE_FONT);
+        g.drawString("Score: " + score, 0, 175);
+        g.drawString("Money: " + money, 0, 230);
+        g.setFont(SMALL_FONT);
+        g.drawString("Monsters: " + monsterCount, 0, 265);
+        g.drawString("Ticks per second: " + ticksPerSecond, 0, 285);
+    }
+
+    /**
+    * Repaints the HUD if any value changed since the last flush. Called once
+    * per frame after the values have been set
+    */
+    public void flush() {
+        if (changed) {
+            changed = false;
+            repaint();
+        }
+    }
+
+    /**
+    * Sets the score shown
+    *
+    * @param score The score of the player
+    */
+    public void setScore(int score) {
+        if (this.score != score) {
+            this.score = score;
+            changed = true;
+        }
+    }
+
+    /**
+    * Sets the money shown
+    *
+    * @param money The money the player has to spend
+    */
+    public void setMoney(int money) {
+        if (this.money != money) {
+            this.money = money;
+            changed = true;
+        }
+    }
+
+    /**
+    * Sets the wave number shown
+    *
+    * @param waveNumber The current wave number
+    */
+    public void setWaveNumber(int waveNumber) {
+        if (this.waveNumber != waveNumber) {
+            this.waveNumber = waveNumber;
+            changed = true;
+        }
+    }
+
+    /**
+    * Sets the number of Monsters shown
+    *
+    * @param monsterCount The number of Monsters on the map
+    */
+    public void setMonsterCount(int monsterCount) {
+        if (this.monsterCount != monsterCount) {
+            this.monsterCount = monsterCount;
+            changed = true;
+        }
+    }
+
+    /**
+    * Sets the tick rate shown
+    *
+    * @param ticksPerSecond The number of game ticks simulated each second
+    */
+    public void setTicksPerSecond(int ticksPerSecond) {
+        if (this.ticksPerSecond != ticksPerSecond) {
+            this.ticksPerSecond = ticksPerSecond;
+            changed = true;
+        }
+    }
+}
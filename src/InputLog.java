@@ -0,0 +1,223 @@
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * InputLog reads back a log written by an InputRecorder. A log starts with a
+ * header holding the seed and wave schedule of the game, followed by one
+ * record per player input or tick checksum. Each record is the number of
+ * ticks since the previous record, an operation code and the operation's
+ * values, with numbers written as variable length integers so most records
+ * take a few bytes
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class InputLog {
+
+    public static final int MAGIC = 0x5444494c;
+    public static final int VERSION = 3;
+
+    public static final int PLACE_TOWER = 1;
+    public static final int SEND_WAVE = 2;
+    public static final int SPEED = 3;
+    public static final int CHECKSUM = 4;
+
+    private DataInputStream in;
+    private long seed, tick;
+    private WaveSchedule waveSchedule;
+    private int operation, first, second, third;
+
+    /**
+    * Opens a log and reads its header
+    *
+    * @param file The log file to read
+    * @throws IOException If the file cannot be read or is not an input log
+    */
+    public InputLog(File file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(
+                                                new FileInputStream(file)));
+        if (in.readInt() != MAGIC) {
+            in.close();
+            throw new IOException(file + " is not an input log");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            in.close();
+            throw new IOException(file + " has unsupported version "
+                                                                + version);
+        }
+        seed = in.readLong();
+        byte[] schedule = new byte[in.readInt()];
+        in.readFully(schedule);
+        waveSchedule = WaveSchedule.readFrom(ByteBuffer.wrap(schedule));
+        tick = 0;
+    }
+
+    /**
+    * Reads the next record
+    *
+    * @return boolean True if a record was read, false at the end of the log
+    * @throws IOException If the log cannot be read or is corrupt
+    */
+    public boolean next() throws IOException {
+        long delta;
+        try {
+            delta = readVarLong(in);
+        } catch (EOFException e) {
+            return false;
+        }
+        tick += delta;
+        operation = in.readUnsignedByte();
+        if (operation == PLACE_TOWER) {
+            first = in.readUnsignedByte();
+            second = decodeZigZag(readVarLong(in));
+            third = decodeZigZag(readVarLong(in));
+        } else if (operation == SPEED) {
+            first = (int) readVarLong(in);
+        } else if (operation == CHECKSUM) {
+            first = in.readInt();
+        } else if (operation != SEND_WAVE) {
+            throw new IOException("Unknown operation " + operation
+                                                    + " at tick " + tick);
+        }
+        return true;
+    }
+
+    /**
+    * Closes the log
+    *
+    * @throws IOException If the file cannot be closed
+    */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+    * Gets the seed of the recorded game
+    *
+    * @return seed The seed the game's random number generator started with
+    */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+    * Gets the wave schedule of the recorded game
+    *
+    * @return waveSchedule The Monsters each wave of the game released
+    */
+    public WaveSchedule getWaveSchedule() {
+        return waveSchedule;
+    }
+
+    /**
+    * Gets the tick of the current record. Inputs were made when the game had
+    * run this many ticks, and checksums were taken right after that tick
+    *
+    * @return tick The tick of the current record
+    */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+    * Gets the operation of the current record
+    *
+    * @return operation One of PLACE_TOWER, SEND_WAVE, SPEED or CHECKSUM
+    */
+    public int getOperation() {
+        return operation;
+    }
+
+    /**
+    * Gets the Tower type of a PLACE_TOWER record, the speed of a SPEED
+    * record or the checksum of a CHECKSUM record
+    *
+    * @return first The first value of the current record
+    */
+    public int getFirst() {
+        return first;
+    }
+
+    /**
+    * Gets the x coordinate of a PLACE_TOWER record
+    *
+    * @return second The second value of the current record
+    */
+    public int getSecond() {
+        return second;
+    }
+
+    /**
+    * Gets the y coordinate of a PLACE_TOWER record
+    *
+    * @return third The third value of the current record
+    */
+    public int getThird() {
+        return third;
+    }
+
+    /**
+    * Writes a non-negative number using 7 bits per byte, with the high bit
+    * set on every byte but the last
+    *
+    * @param out The output to write to
+    * @param value The number to write
+    * @throws IOException If the output cannot be written
+    */
+    public static void writeVarLong(DataOutput out, long value)
+                                                        throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+    * Reads a number written by writeVarLong
+    *
+    * @param in The input to read from
+    * @return long The number read
+    * @throws IOException If the input cannot be read
+    */
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+    * Maps a signed number to a non-negative one so that small negative
+    * numbers stay small when written with writeVarLong
+    *
+    * @param value The signed number
+    * @return long The encoded number
+    */
+    public static long encodeZigZag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    /**
+    * Reverses encodeZigZag
+    *
+    * @param value The encoded number
+    * @return int The signed number
+    */
+    public static int decodeZigZag(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+}
@@ -5,8 +5,10 @@ import javax.swing.ButtonGroup;
 import javax.swing.BoxLayout;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.io.IOException;
 import javax.swing.JButton;
-import javax.swing.JLabel;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.Timer;
@@ -14,7 +16,9 @@ import javax.swing.Timer;
 /**
  * InputPanel constructs the left half of the Tower Defense GUI that lets
  * players choose which towers to place and also shows the wave number, score,
- * and remaining money
+ * and remaining money in a HudPanel. The HUD follows the game through its
+ * GameEventBus, which the panel drains once a frame on a timer of its own,
+ * and is only repainted when one of its values changed
  *
  * @author Graham Wright
  * @version 1.0
@@ -24,15 +28,23 @@ import javax.swing.Timer;
 
 public class InputPanel extends JPanel {
 
-    private int score = 250;
-    private int money = 150;
-    private boolean stillPlaying, inFastForward;
+    public static final int MAX_SPEED = 0;
+    public static final int REFRESH_MILLIS = GameEngine.TICK_MILLIS;
+    public static final long TICK_RATE_NANOS = 1000000000L;
 
-    private int waveNumber;
+    private static final int[] SPEEDS = {1, 2, 4, 8, 16, MAX_SPEED};
 
-    private JLabel scoreLabel, moneyLabel, waveLabel;
+    private int speedIndex;
+    private JButton fastForward;
+
+    private HudPanel hud;
     private int currentTowerType;
-    private Timer waveTimer;
+    private GameEngine engine;
+    private GameEventBus.Reader events;
+    private StatsListener statsListener;
+    private long rateStartTick, rateStartTime;
+    private GamePanel gamePanel;
+    private JFileChooser fileChooser;
 
     /**
     * Constructs the Input Panel GUI for a Tower Defense Game
@@ -40,21 +52,10 @@ public class InputPanel extends JPanel {
     public InputPanel() {
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setPreferredSize(new Dimension(200, GamePanel.HEIGHT));
-        waveNumber = 0;
-
-        add(Box.createRigidArea(new Dimension(60, 100)));
-        scoreLabel = new JLabel("Score: " + score);
-        scoreLabel.setFont(new Font("Serif", Font.PLAIN, 25));
-        moneyLabel = new JLabel("Money: " + money);
-        moneyLabel.setFont(new Font("Serif", Font.PLAIN, 25));
-        waveLabel = new JLabel("Wave Number: " + waveNumber);
-        waveLabel.setFont(new Font("Serif", Font.PLAIN, 20));
-        add(waveLabel);
-        add(Box.createRigidArea(new Dimension(0, 50)));
-        add(scoreLabel);
-        add(Box.createRigidArea(new Dimension(0, 50)));
-        add(moneyLabel);
-        add(Box.createRigidArea(new Dimension(0, 50)));
+
+        hud = new HudPanel();
+        add(hud);
+        add(Box.createRigidArea(new Dimension(0, 30)));
 
         ButtonGroup radios = new ButtonGroup();
         JRadioButton basic = new JRadioButton("Basic Tower: 75");
@@ -78,117 +79,150 @@ public class InputPanel extends JPanel {
         add(wave);
         add(Box.createRigidArea(new Dimension(0, 50)));
 
-        JButton fastForward = new JButton("Fast Forward");
+        fastForward = new JButton();
         fastForward.addActionListener(new FastForwardButtonListener());
         add(fastForward);
+        add(Box.createRigidArea(new Dimension(0, 50)));
 
-        currentTowerType = Tower.BASIC_TOWER;
-        stillPlaying = true;
-        inFastForward = false;
-        waveTimer = null;
-    }
+        JButton save = new JButton("Save Game");
+        save.addActionListener(new SaveButtonListener());
+        add(save);
+        add(Box.createRigidArea(new Dimension(0, 10)));
 
-    /**
-    * Gives a reference to the waveTimer that controls the releasing of
-    * Monsters each wave to InputPanel so that it knows not to start a wave
-    * before the previous wave has finished releasing monsters
-    *
-    * @param waveTimer The Timer that controls wave releases
-    */
-    public void assignWaveTimer(Timer waveTimer) {
-        this.waveTimer = waveTimer;
+        JButton load = new JButton("Load Game");
+        load.addActionListener(new LoadButtonListener());
+        add(load);
+
+        fileChooser = new JFileChooser();
+        currentTowerType = Tower.BASIC_TOWER;
+        speedIndex = 0;
+        updateSpeedLabel();
+        engine = null;
+        statsListener = new StatsListener();
+        new Timer(REFRESH_MILLIS, new RefreshListener()).start();
     }
 
     /**
-    * Gets the current Tower type that is selected for creation
+    * Gives a reference to the GameEngine running the game so that the panel
+    * can show its score, money and wave number and send it new waves
     *
-    * @return currentTowerType The int representation of the current Tower
+    * @param engine The GameEngine that owns the game state
     */
-    public int getCurrentTowerType() {
-        return currentTowerType;
+    public void assignEngine(GameEngine engine) {
+        this.engine = engine;
+        events = engine.getEventBus().newReader();
+        rateStartTick = engine.getTick();
+        rateStartTime = System.nanoTime();
+        refreshStats();
+        hud.flush();
     }
 
     /**
-    * Gets the current wave number of the game
+    * Gives a reference to the GamePanel showing the game so that a loaded
+    * game can replace the one being played
     *
-    * @return waveNumber The current wave number of the game
+    * @param gamePanel The GamePanel of the Tower Defense Game
     */
-    public int getWaveNumber() {
-        return waveNumber;
+    public void assignGamePanel(GamePanel gamePanel) {
+        this.gamePanel = gamePanel;
     }
 
     /**
-    * Gets the current score
+    * Gets the current Tower type that is selected for creation
     *
-    * @return score The score of the player
+    * @return currentTowerType The int representation of the current Tower
     */
-    public int getScore() {
-        return score;
+    public int getCurrentTowerType() {
+        return currentTowerType;
     }
 
     /**
-    * Updates the score and money variables from happenings in the game
-    *
-    * @param stats An array of the amount of score to be subtracted from
-    * unkilled Monsters and the amount of money to add from killed monsters
+    * Sets the score, money and wave number of the HUD from the state of the
+    * game
     */
-    public void updateStats(int[] stats) {
-        takeFromScore(stats[0]);
-        addToMoney(stats[1]);
+    public void refreshStats() {
+        hud.setScore(engine.getScore());
+        hud.setMoney(engine.getMoney());
+        hud.setWaveNumber(engine.getWaveNumber());
     }
 
     /**
-    * Checks if the user still has a positive score
-    *
-    * @return stillPlaying Whether or not the game is still in progress
+    * Brings the HUD up to date for a new frame. Every event the game
+    * published since the last frame is applied, or if events were lost
+    * because the game ran far ahead of the panel, the values are read from
+    * the game instead. The HUD is then repainted once if anything changed
     */
-    public boolean isStillPlaying() {
-        return stillPlaying;
+    public void refreshHud() {
+        if (events == null) {
+            return;
+        }
+        long lost = events.getLostCount();
+        events.drain(statsListener);
+        if (events.getLostCount() != lost) {
+            refreshStats();
+        }
+        hud.setMonsterCount(engine.getMonsters().size());
+        long now = System.nanoTime();
+        if (now - rateStartTime >= TICK_RATE_NANOS) {
+            long ticks = engine.getTick() - rateStartTick;
+            hud.setTicksPerSecond((int) (ticks * 1000000000L
+                                                / (now - rateStartTime)));
+            rateStartTick = engine.getTick();
+            rateStartTime = now;
+        }
+        hud.flush();
     }
 
     /**
-    * Checks if the game should run at double speed
+    * Gets how many times faster than normal the game should run
     *
-    * @return inDoubleSpeed Whether or not the game is at double speed
+    * @return int The speed multiplier, or MAX_SPEED to run as fast as
+    * possible
     */
-    public boolean isInFastForward() {
-        return inFastForward;
+    public int getSpeed() {
+        return SPEEDS[speedIndex];
     }
 
-    /**
-    * Removes the amount of money spent from creating Towers from the total
-    *
-    * @param spent The amount of money spent by making Towers
-    * @return boolean True if the resulting money value is positive,
-    * false if the resulting money value would be negative (but does not
-    * subtract if so)
-    */
-    public boolean removeFromMoney(int spent) {
-        if (money - spent < 0) {
-            return false;
+    private void updateSpeedLabel() {
+        if (getSpeed() == MAX_SPEED) {
+            fastForward.setText("Fast Forward: Max");
         } else {
-            money -= spent;
-            moneyLabel.setText("Money: " + money);
-            return true;
+            fastForward.setText("Fast Forward: " + getSpeed() + "x");
         }
     }
 
-    private void takeFromScore(int scoreLoss) {
-        score -= scoreLoss;
-        if (score <= 0) {
-            score = 0;
-            stillPlaying = false;
+    private class StatsListener implements GameEventListener {
+
+        /**
+        * Updates the HUD value an event changes
+        *
+        * @param kind The kind of event
+        * @param tick The tick the event happened on
+        * @param value The new score, money or wave number for the events
+        * that change them
+        * @param amount The second int of the event
+        */
+        public void onEvent(int kind, long tick, int value, int amount) {
+            if (kind == GameEventBus.SCORE_CHANGED) {
+                hud.setScore(value);
+            } else if (kind == GameEventBus.MONEY_CHANGED) {
+                hud.setMoney(value);
+            } else if (kind == GameEventBus.WAVE_STARTED) {
+                hud.setWaveNumber(value);
+            }
         }
-        scoreLabel.setText("Score: " + score);
     }
 
-    private void addToMoney(int moneyAddition) {
-        money += moneyAddition;
-        moneyLabel.setText("Money: " + money);
-    }
+    private class RefreshListener implements ActionListener {
 
-    private void endGame() {
-        stillPlaying = false;
+        /**
+        * The required actionPerformed method
+        *
+        * @param e The ActionEvent caused by each tick of the refresh Timer
+        */
+        public void actionPerformed(ActionEvent e) {
+            refreshHud();
+        }
     }
 
     private class RadioListener implements ActionListener {
@@ -218,26 +252,65 @@ public class InputPanel extends JPanel {
         * @param e The ActionEvent caused by clicking the Wave button
         */
         public void actionPerformed(ActionEvent e) {
-            if (waveNumber == 50) {
-                waveNumber++;
-                endGame();
+            engine.sendNextWave();
+        }
+    }
+
+    private class FastForwardButtonListener implements ActionListener {
+
+        /**
+        * The required actionPerformed method
+        *
+        * @param e The ActionEvent caused by clicking the Fast Forward button,
+        * which moves on to the next speed
+        */
+        public void actionPerformed(ActionEvent e) {
+            speedIndex = (speedIndex + 1) % SPEEDS.length;
+            updateSpeedLabel();
+            engine.speedChanged(getSpeed());
+        }
+    }
+
+    private class SaveButtonListener implements ActionListener {
+
+        /**
+        * The required actionPerformed method
+        *
+        * @param e The ActionEvent caused by clicking the Save Game button
+        */
+        public void actionPerformed(ActionEvent e) {
+            if (fileChooser.showSaveDialog(InputPanel.this)
+                                            != JFileChooser.APPROVE_OPTION) {
+                return;
             }
-            if (!waveTimer.isRunning() && waveNumber < 50) {
-                waveNumber++;
-                waveLabel.setText("Wave Number: " + waveNumber);
+            try {
+                GameSnapshot.save(engine, fileChooser.getSelectedFile());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(InputPanel.this,
+                                    "Could not save game: " + ex.getMessage());
             }
         }
     }
 
-    private class FastForwardButtonListener implements ActionListener {
+    private class LoadButtonListener implements ActionListener {
 
         /**
         * The required actionPerformed method
         *
-        * @param e The ActionEvent caused by clicking the Wave button
+        * @param e The ActionEvent caused by clicking the Load Game button
         */
         public void actionPerformed(ActionEvent e) {
-            inFastForward = !inFastForward;
+            if (fileChooser.showOpenDialog(InputPanel.this)
+                                            != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                gamePanel.setEngine(GameSnapshot.load(
+                                            fileChooser.getSelectedFile()));
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(InputPanel.this,
+                                    "Could not load game: " + ex.getMessage());
+            }
         }
     }
 }
@@ -0,0 +1,140 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * InputRecorder writes every player input and a checksum of the game state
+ * after every tick to a compact binary log, so that a game can be replayed
+ * exactly by ReplayRunner. See InputLog for the format. If the log cannot be
+ * written the recorder reports it once and stops recording rather than
+ * interrupting the game
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class InputRecorder {
+
+    private DataOutputStream out;
+    private long lastTick;
+
+    /**
+    * Creates a log file and writes its header
+    *
+    * @param file The file to write the log to
+    * @param seed The seed of the game being recorded
+    * @param schedule The wave schedule of the game being recorded
+    * @throws IOException If the file cannot be created
+    */
+    public InputRecorder(File file, long seed, WaveSchedule schedule)
+                                                        throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(
+                                                new FileOutputStream(file)));
+        out.writeInt(InputLog.MAGIC);
+        out.writeByte(InputLog.VERSION);
+        out.writeLong(seed);
+        ByteBuffer buffer = ByteBuffer.allocate(schedule.getWrittenSize());
+        schedule.writeTo(buffer);
+        out.writeInt(buffer.capacity());
+        out.write(buffer.array());
+        lastTick = 0;
+    }
+
+    /**
+    * Records an attempt to place a Tower
+    *
+    * @param tick The number of ticks the game had run
+    * @param type The int representation of the Tower type
+    * @param x The x coordinate of the Tower
+    * @param y The y coordinate of the Tower
+    */
+    public void recordTowerPlacement(long tick, int type, int x, int y) {
+        try {
+            if (start(tick, InputLog.PLACE_TOWER)) {
+                out.writeByte(type);
+                InputLog.writeVarLong(out, InputLog.encodeZigZag(x));
+                InputLog.writeVarLong(out, InputLog.encodeZigZag(y));
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+    * Records a press of the Send Wave button
+    *
+    * @param tick The number of ticks the game had run
+    */
+    public void recordWave(long tick) {
+        try {
+            start(tick, InputLog.SEND_WAVE);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+    * Records a change of game speed. Speed does not change the outcome of a
+    * game, but it is kept so a replay shows what the player saw
+    *
+    * @param tick The number of ticks the game had run
+    * @param speed The new speed multiplier, or InputPanel.MAX_SPEED
+    */
+    public void recordSpeed(long tick, int speed) {
+        try {
+            if (start(tick, InputLog.SPEED)) {
+                InputLog.writeVarLong(out, speed);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+    * Records the checksum of the game state after a tick
+    *
+    * @param tick The tick that was just run
+    * @param checksum The checksum of the game state
+    */
+    public void recordChecksum(long tick, int checksum) {
+        try {
+            if (start(tick, InputLog.CHECKSUM)) {
+                out.writeInt(checksum);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+    * Flushes and closes the log. Nothing more is recorded afterwards
+    */
+    public void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Could not close input log: " + e);
+        }
+        out = null;
+    }
+
+    private boolean start(long tick, int operation) throws IOException {
+        if (out == null) {
+            return false;
+        }
+        InputLog.writeVarLong(out, tick - lastTick);
+        out.writeByte(operation);
+        lastTick = tick;
+        return true;
+    }
+
+    private void fail(IOException e) {
+        System.err.println("Stopped recording inputs: " + e);
+        out = null;
+    }
+}
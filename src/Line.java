@@ -10,6 +10,7 @@ import java.awt.Point;
  * @version 1.0
  */
 public class Line {
+
     private Point start, end;
 
     /**
@@ -54,66 +55,6 @@ public class Line {
         return start;
     }
 
-    /**
-    * Determines if the coordinate given is along this Line
-    *
-    * @param x The x coordinate of the location
-    * @param y The y coordinate of the location
-    * @return boolean Whether or not the location is along the Line
-    */
-    public boolean contains(int x, int y) {
-        int largeX, smallX, largeY, smallY;
-
-        int x1 = (int) start.getX();
-        int y1 = (int) start.getY();
-        int x2 = (int) end.getX();
-        int y2 = (int) end.getY();
-        if (Math.abs(x1 - x2) > 0) {
-            if (x1 > x2) {
-                largeX = x1;
-                smallX = x2;
-            } else {
-                smallX = x1;
-                largeX = x2;
-            }
-            return x >= smallX && x <= largeX;
-
-        } else {
-            if (y1 > y2) {
-                largeY = y1;
-                smallY = y2;
-            } else {
-                smallY = y1;
-                largeY = y2;
-            }
-            return y >= smallY && y <= largeY;
-        }
-    }
-
-    /**
-    * Constructs a new Point that acts as a Vector for a Monster that changes
-    * Lines along the Path based off of the Monster's speed
-    *
-    * @param speed The speed of the monster
-    * @return Point The Point that represents the Monster's new Vector
-    */
-    public Point getVector(int speed) {
-        int x1 = (int) start.getX();
-        int y1 = (int) start.getY();
-        int x2 = (int) end.getX();
-        int y2 = (int) end.getY();
-
-        if (x2 > x1) {
-            return new Point(speed * 3, 0);
-        } else if (x2 < x1) {
-            return new Point(speed * -3, 0);
-        } else if (y2 > y1) {
-            return new Point(0, speed * 3);
-        } else {
-            return new Point(0, speed * -3);
-        }
-    }
-
     /**
     * Draws the Line to the GUI
     *
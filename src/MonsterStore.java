@@ -0,0 +1,659 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * MonsterStore holds every Monster on the map as columns of primitive arrays
+ * instead of one object per Monster. Monster i is made up of the i-th entry
+ * of each column, so the movement, targeting and death passes walk plain
+ * arrays from front to back. A Monster's place on the path is the single
+ * distance it has travelled; its location is worked out from that distance
+ * by the CompiledPath each time it moves. Per type information such as money
+ * value and score loss is looked up from the Monster's MonsterType
+ *
+ * Indexes change whenever the Monsters are ordered or removed, so each
+ * Monster also has a handle that stays the same for its whole life. A handle
+ * names a slot in a table that follows the Monster's index, along with the
+ * slot's generation. The generation goes up each time a slot is freed, so a
+ * handle to a Monster that has died or leaked is recognised as stale instead
+ * of naming whichever Monster took the slot next
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class MonsterStore {
+
+    public static final int INITIAL_CAPACITY = 64;
+    public static final int MAX_SHIFTS_PER_MONSTER = 4;
+    public static final int MAX_OUT_OF_PLACE_FRACTION = 16;
+
+    private static final byte BEING_ATTACKED = 1;
+    private static final byte REACHED_END = 2;
+
+    public static final long NO_HANDLE = -1;
+
+    private int size;
+    private int[] x, y, health, speed, pathIndex, distanceTraveled;
+    private byte[] type, flags;
+    private int[] slot, slotIndex, slotGeneration;
+    private int slotCount, freeSlot;
+    private long[] sortKeys;
+    private int[] scratch;
+    private byte[] byteScratch;
+
+    /**
+    * Constructs an empty MonsterStore
+    */
+    public MonsterStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+    * Constructs an empty MonsterStore with room for a number of Monsters
+    * before it has to grow
+    *
+    * @param capacity The number of Monsters to make room for
+    */
+    public MonsterStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        health = new int[capacity];
+        speed = new int[capacity];
+        pathIndex = new int[capacity];
+        distanceTraveled = new int[capacity];
+        type = new byte[capacity];
+        flags = new byte[capacity];
+        slot = new int[capacity];
+        slotIndex = new int[capacity];
+        slotGeneration = new int[capacity];
+        size = 0;
+        slotCount = 0;
+        freeSlot = -1;
+    }
+
+    /**
+    * Adds a Monster to the end of the store at the start of the path
+    *
+    * @param monsterType The type of the Monster
+    * @param startX The x coordinate of the start of the path
+    * @param startY The y coordinate of the start of the path
+    */
+    public void add(MonsterType monsterType, int startX, int startY) {
+        if (size == x.length) {
+            grow(size * 2);
+        }
+        int i = size++;
+        x[i] = startX;
+        y[i] = startY;
+        health[i] = monsterType.getHealth();
+        speed[i] = monsterType.getSpeed();
+        pathIndex[i] = 0;
+        distanceTraveled[i] = 0;
+        type[i] = (byte) monsterType.getId();
+        flags[i] = 0;
+        int s = freeSlot;
+        if (s >= 0) {
+            freeSlot = slotIndex[s];
+        } else {
+            s = slotCount++;
+        }
+        slot[i] = s;
+        slotIndex[s] = i;
+    }
+
+    /**
+    * Removes every Monster that is dead or reached the end of the path in a
+    * single pass, keeping the remaining Monsters in order. The handles of
+    * the removed Monsters become stale
+    */
+    public void removeFinished() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (health[i] <= 0 || (flags[i] & REACHED_END) != 0) {
+                freeSlot(slot[i]);
+                continue;
+            }
+            if (kept != i) {
+                x[kept] = x[i];
+                y[kept] = y[i];
+                health[kept] = health[i];
+                speed[kept] = speed[i];
+                pathIndex[kept] = pathIndex[i];
+                distanceTraveled[kept] = distanceTraveled[i];
+                type[kept] = type[i];
+                flags[kept] = flags[i];
+                slot[kept] = slot[i];
+                slotIndex[slot[kept]] = kept;
+            }
+            kept++;
+        }
+        size = kept;
+    }
+
+    /**
+    * Swaps the Monsters at two indexes
+    *
+    * @param i The index of the first Monster
+    * @param j The index of the second Monster
+    */
+    public void swap(int i, int j) {
+        swap(x, i, j);
+        swap(y, i, j);
+        swap(health, i, j);
+        swap(speed, i, j);
+        swap(pathIndex, i, j);
+        swap(distanceTraveled, i, j);
+        byte b = type[i];
+        type[i] = type[j];
+        type[j] = b;
+        b = flags[i];
+        flags[i] = flags[j];
+        flags[j] = b;
+        swap(slot, i, j);
+        slotIndex[slot[i]] = i;
+        slotIndex[slot[j]] = j;
+    }
+
+    /**
+    * Makes this store an exact copy of another store
+    *
+    * @param other The store to copy
+    */
+    public void copyFrom(MonsterStore other) {
+        if (x.length < other.slotCount) {
+            grow(other.slotCount);
+        }
+        size = other.size;
+        System.arraycopy(other.x, 0, x, 0, size);
+        System.arraycopy(other.y, 0, y, 0, size);
+        System.arraycopy(other.health, 0, health, 0, size);
+        System.arraycopy(other.speed, 0, speed, 0, size);
+        System.arraycopy(other.pathIndex, 0, pathIndex, 0, size);
+        System.arraycopy(other.distanceTraveled, 0, distanceTraveled, 0,
+                                                                    size);
+        System.arraycopy(other.type, 0, type, 0, size);
+        System.arraycopy(other.flags, 0, flags, 0, size);
+        System.arraycopy(other.slot, 0, slot, 0, size);
+        slotCount = other.slotCount;
+        freeSlot = other.freeSlot;
+        System.arraycopy(other.slotIndex, 0, slotIndex, 0, slotCount);
+        System.arraycopy(other.slotGeneration, 0, slotGeneration, 0,
+                                                                slotCount);
+    }
+
+    /**
+    * Moves every Monster along the path and clears whether it is being
+    * attacked
+    *
+    * @param path The compiled Tower Defense path
+    * @param rand The game's random number generator
+    */
+    public void moveAll(CompiledPath path, Random rand) {
+        for (int i = 0; i < size; i++) {
+            flags[i] &= ~BEING_ATTACKED;
+            move(i, path, rand);
+        }
+    }
+
+    /**
+    * Moves one Monster along the path. A Monster that passes the end of the
+    * path is drained of health and marked as having reached the end
+    *
+    * @param i The index of the Monster to move
+    * @param path The compiled Tower Defense path
+    * @param rand The game's random number generator
+    */
+    public void move(int i, CompiledPath path, Random rand) {
+        int stallPercent = MonsterType.get(type[i] & 0xFF).getStallPercent();
+        if (stallPercent > 0 && rand.nextInt(100) < stallPercent) {
+            return;
+        }
+        int distance = distanceTraveled[i] + speed[i] * CompiledPath.STEP;
+        distanceTraveled[i] = distance;
+        if (distance > path.getLength()) {
+            flags[i] |= REACHED_END;
+            health[i] = 0;
+        } else {
+            int segment = path.segmentAt(distance, pathIndex[i]);
+            pathIndex[i] = segment;
+            x[i] = path.getX(segment, distance);
+            y[i] = path.getY(segment, distance);
+        }
+    }
+
+    /**
+    * Finds the first Monster that has travelled no farther than a distance,
+    * using a binary search. The store must be ordered, farthest along first
+    *
+    * @param distance The distance along the path
+    * @return int The index of the first such Monster, or size() if every
+    * Monster has travelled farther
+    */
+    public int firstAtOrBefore(int distance) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distanceTraveled[middle] > distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+    * Puts a Monster at a distance along the path, as though it had walked
+    * there. Used to set up games that start with Monsters already spread
+    * along the path
+    *
+    * @param i The index of the Monster to place
+    * @param distance The distance along the path, no more than its length
+    * @param path The compiled Tower Defense path
+    */
+    public void placeAt(int i, int distance, CompiledPath path) {
+        int segment = path.segmentAt(distance, 0);
+        distanceTraveled[i] = distance;
+        pathIndex[i] = segment;
+        x[i] = path.getX(segment, distance);
+        y[i] = path.getY(segment, distance);
+    }
+
+    /**
+    * Puts the Monsters back in order, farthest along first, after they have
+    * moved. Monsters only move a little each tick, so the store is nearly in
+    * order already and an insertion pass fixes it in close to linear time.
+    * When too many Monsters are out of place, such as in a crowd of Monsters
+    * at different speeds, it falls back to a full sort. Monsters that have
+    * travelled the same distance keep their current order
+    */
+    public void order() {
+        int outOfPlace = 0;
+        for (int i = 1; i < size; i++) {
+            if (distanceTraveled[i] > distanceTraveled[i - 1]) {
+                outOfPlace++;
+            }
+        }
+        if (outOfPlace == 0) {
+            return;
+        }
+        if (outOfPlace > size / MAX_OUT_OF_PLACE_FRACTION) {
+            sort();
+            return;
+        }
+        long budget = (long) MAX_SHIFTS_PER_MONSTER * size;
+        for (int i = 1; i < size; i++) {
+            int distance = distanceTraveled[i];
+            if (distance <= distanceTraveled[i - 1]) {
+                continue;
+            }
+            int j = i;
+            while (j > 0 && distanceTraveled[j - 1] < distance) {
+                swap(j, j - 1);
+                j--;
+            }
+            budget -= i - j;
+            if (budget < 0) {
+                sort();
+                return;
+            }
+        }
+    }
+
+    /**
+    * Sorts the Monsters so the farthest along Monster comes first, whatever
+    * order they are in. Monsters that have travelled the same distance keep
+    * their current order
+    */
+    public void sort() {
+        if (sortKeys == null || sortKeys.length < size) {
+            sortKeys = new long[x.length];
+        }
+        for (int i = 0; i < size; i++) {
+            sortKeys[i] = ((long) -distanceTraveled[i] << 32) | i;
+        }
+        Arrays.sort(sortKeys, 0, size);
+        if (scratch == null || scratch.length < size) {
+            scratch = new int[x.length];
+            byteScratch = new byte[x.length];
+        }
+        permute(x);
+        permute(y);
+        permute(health);
+        permute(speed);
+        permute(pathIndex);
+        permute(distanceTraveled);
+        permute(type);
+        permute(flags);
+        permute(slot);
+        for (int i = 0; i < size; i++) {
+            slotIndex[slot[i]] = i;
+        }
+    }
+
+    /**
+    * Gets the number of bytes writeTo needs to write this store
+    *
+    * @return int The size of the store when written
+    */
+    public int getWrittenSize() {
+        return 4 + size * (7 * 4 + 2) + 8 + slotCount * 2 * 4;
+    }
+
+    /**
+    * Writes every Monster to a buffer, one whole column at a time, followed
+    * by the handle table so that handles stay valid across a save and load
+    *
+    * @param buffer The buffer to write to
+    */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(size);
+        writeColumn(buffer, x);
+        writeColumn(buffer, y);
+        writeColumn(buffer, health);
+        writeColumn(buffer, speed);
+        writeColumn(buffer, pathIndex);
+        writeColumn(buffer, distanceTraveled);
+        buffer.put(type, 0, size);
+        buffer.put(flags, 0, size);
+        writeColumn(buffer, slot);
+        buffer.putInt(slotCount);
+        buffer.putInt(freeSlot);
+        writeColumn(buffer, slotIndex, slotCount);
+        writeColumn(buffer, slotGeneration, slotCount);
+    }
+
+    /**
+    * Replaces every Monster in the store with Monsters read from a buffer
+    * written by writeTo
+    *
+    * @param buffer The buffer to read from
+    */
+    public void readFrom(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (x.length < count) {
+            grow(count);
+        }
+        size = count;
+        readColumn(buffer, x);
+        readColumn(buffer, y);
+        readColumn(buffer, health);
+        readColumn(buffer, speed);
+        readColumn(buffer, pathIndex);
+        readColumn(buffer, distanceTraveled);
+        buffer.get(type, 0, size);
+        buffer.get(flags, 0, size);
+        readColumn(buffer, slot);
+        int slots = buffer.getInt();
+        if (x.length < slots) {
+            grow(slots);
+        }
+        slotCount = slots;
+        freeSlot = buffer.getInt();
+        readColumn(buffer, slotIndex, slotCount);
+        readColumn(buffer, slotGeneration, slotCount);
+    }
+
+    /**
+    * Mixes the state of every Monster into a checksum
+    *
+    * @param hash The checksum so far
+    * @return int The checksum including every Monster
+    */
+    public int checksum(int hash) {
+        hash = 31 * hash + size;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + x[i];
+            hash = 31 * hash + y[i];
+            hash = 31 * hash + health[i];
+            hash = 31 * hash + distanceTraveled[i];
+            hash = 31 * hash + type[i];
+            hash = 31 * hash + flags[i];
+        }
+        return hash;
+    }
+
+    /**
+    * Inflicts damage on a Monster
+    *
+    * @param i The index of the Monster taking the damage
+    * @param damage The amount of health to take away
+    */
+    public void takeHit(int i, int damage) {
+        health[i] -= damage;
+        flags[i] |= BEING_ATTACKED;
+    }
+
+    /**
+    * Marks a Monster as being attacked without hurting it, such as when
+    * copying a game from a server
+    *
+    * @param i The index of the Monster
+    */
+    public void setBeingAttacked(int i) {
+        flags[i] |= BEING_ATTACKED;
+    }
+
+    /**
+    * Drains a Monster of health
+    *
+    * @param i The index of the Monster
+    */
+    public void drainHealth(int i) {
+        health[i] = 0;
+    }
+
+    /**
+    * Gets the number of Monsters in the store
+    *
+    * @return size The number of Monsters on the map
+    */
+    public int size() {
+        return size;
+    }
+
+    /**
+    * Tells whether there are no Monsters in the store
+    *
+    * @return boolean Whether or not the store is empty
+    */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+    * Removes every Monster from the store, making all of their handles stale
+    */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            freeSlot(slot[i]);
+        }
+        size = 0;
+    }
+
+    /**
+    * Gets the handle of a Monster, which stays the same while the Monster
+    * moves around the store and goes stale once it is removed
+    *
+    * @param i The index of the Monster
+    * @return long The handle of the Monster
+    */
+    public long getHandle(int i) {
+        return ((long) slotGeneration[slot[i]] << 32) | slot[i];
+    }
+
+    /**
+    * Finds the current index of the Monster a handle refers to
+    *
+    * @param handle A handle from getHandle
+    * @return int The index of the Monster, or -1 if it has been removed
+    */
+    public int indexOf(long handle) {
+        int s = (int) handle;
+        if (handle == NO_HANDLE || s < 0 || s >= slotCount
+                        || slotGeneration[s] != (int) (handle >>> 32)) {
+            return -1;
+        }
+        return slotIndex[s];
+    }
+
+    /**
+    * Tells whether a handle still refers to a Monster in the store
+    *
+    * @param handle A handle from getHandle
+    * @return boolean Whether or not the Monster is still in the store
+    */
+    public boolean contains(long handle) {
+        return indexOf(handle) >= 0;
+    }
+
+    /**
+    * Gets the x coordinate of a Monster
+    *
+    * @param i The index of the Monster
+    * @return int The x coordinate of the Monster
+    */
+    public int getX(int i) {
+        return x[i];
+    }
+
+    /**
+    * Gets the y coordinate of a Monster
+    *
+    * @param i The index of the Monster
+    * @return int The y coordinate of the Monster
+    */
+    public int getY(int i) {
+        return y[i];
+    }
+
+    /**
+    * Gets the type of a Monster
+    *
+    * @param i The index of the Monster
+    * @return int The id of the Monster's type, such as MonsterType.REGULAR
+    */
+    public int getType(int i) {
+        return type[i] & 0xFF;
+    }
+
+    /**
+    * Gets the total distance a Monster has travelled
+    *
+    * @param i The index of the Monster
+    * @return int The distance travelled along the path
+    */
+    public int getDistanceTraveled(int i) {
+        return distanceTraveled[i];
+    }
+
+    /**
+    * Tells whether a Tower just attacked a Monster
+    *
+    * @param i The index of the Monster
+    * @return boolean Whether or not the Monster is being attacked
+    */
+    public boolean isBeingAttacked(int i) {
+        return (flags[i] & BEING_ATTACKED) != 0;
+    }
+
+    /**
+    * Tells whether a Monster reached the end of the path
+    *
+    * @param i The index of the Monster
+    * @return boolean Whether or not the Monster reached the end
+    */
+    public boolean didReachEnd(int i) {
+        return (flags[i] & REACHED_END) != 0;
+    }
+
+    /**
+    * Tells whether a Monster is dead
+    *
+    * @param i The index of the Monster
+    * @return boolean Whether or not the Monster's health is 0 or below
+    */
+    public boolean isDead(int i) {
+        return health[i] <= 0;
+    }
+
+    /**
+    * Gets the money earned from killing a Monster
+    *
+    * @param i The index of the Monster
+    * @return int The money value of the Monster's type
+    */
+    public int getMoneyValue(int i) {
+        return MonsterType.get(type[i] & 0xFF).getMoneyValue();
+    }
+
+    /**
+    * Gets the score lost when a Monster reaches the end
+    *
+    * @param i The index of the Monster
+    * @return int The score loss of the Monster's type
+    */
+    public int getScoreLoss(int i) {
+        return MonsterType.get(type[i] & 0xFF).getScoreLoss();
+    }
+
+    private void writeColumn(ByteBuffer buffer, int[] column) {
+        writeColumn(buffer, column, size);
+    }
+
+    private void writeColumn(ByteBuffer buffer, int[] column, int length) {
+        buffer.asIntBuffer().put(column, 0, length);
+        buffer.position(buffer.position() + length * 4);
+    }
+
+    private void readColumn(ByteBuffer buffer, int[] column) {
+        readColumn(buffer, column, size);
+    }
+
+    private void readColumn(ByteBuffer buffer, int[] column, int length) {
+        buffer.asIntBuffer().get(column, 0, length);
+        buffer.position(buffer.position() + length * 4);
+    }
+
+    private void freeSlot(int s) {
+        slotGeneration[s]++;
+        slotIndex[s] = freeSlot;
+        freeSlot = s;
+    }
+
+    private void permute(int[] column) {
+        for (int i = 0; i < size; i++) {
+            scratch[i] = column[(int) sortKeys[i]];
+        }
+        System.arraycopy(scratch, 0, column, 0, size);
+    }
+
+    private void permute(byte[] column) {
+        for (int i = 0; i < size; i++) {
+            byteScratch[i] = column[(int) sortKeys[i]];
+        }
+        System.arraycopy(byteScratch, 0, column, 0, size);
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        health = Arrays.copyOf(health, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        pathIndex = Arrays.copyOf(pathIndex, capacity);
+        distanceTraveled = Arrays.copyOf(distanceTraveled, capacity);
+        type = Arrays.copyOf(type, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        slot = Arrays.copyOf(slot, capacity);
+        slotIndex = Arrays.copyOf(slotIndex, capacity);
+        slotGeneration = Arrays.copyOf(slotGeneration, capacity);
+    }
+
+    private static void swap(int[] column, int i, int j) {
+        int temp = column[i];
+        column[i] = column[j];
+        column[j] = temp;
+    }
+}
@@ -0,0 +1,237 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * A MonsterType describes one kind of Monster in the Tower Defense Game: its
+ * starting health, speed, the money it is worth, the score lost when it
+ * reaches the end, how often it stalls and how it is drawn. Every Monster in
+ * the MonsterStore refers to its type by id, so the stats of a kind of
+ * Monster are stored once however many of them are on the map. The six
+ * standard types are registered when the class loads, and mods can register
+ * more while the game runs
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class MonsterType {
+
+    public static final int REGULAR = 0;
+    public static final int FAST = 1;
+    public static final int FASTER = 2;
+    public static final int HARD = 3;
+    public static final int INTENSE = 4;
+    public static final int ULTIMATE = 5;
+    public static final int MAX_TYPES = 256;
+
+    private static volatile MonsterType[] registry = new MonsterType[0];
+    private static volatile int maxRadius = 0;
+
+    static {
+        register("regular", 150, 1, 5, 10, 0, Color.BLUE, 10);
+        register("fast", 300, 3, 5, 10, 0, Color.BLACK, 10);
+        register("faster", 500, 5, 5, 10, 0, Color.RED, 10);
+        register("hard", 2000, 1, 5, 10, 0, Color.GREEN, 10);
+        register("intense", 4000, 1, 10, 20, 0, Color.PINK, 15);
+        register("ultimate", 10000, 1, 75, 30, 50, Color.MAGENTA, 25);
+    }
+
+    private int id;
+    private String name;
+    private int health, speed, moneyValue, scoreLoss, stallPercent;
+    private Color color;
+    private int radius;
+
+    private MonsterType(int id, String name, int health, int speed,
+                                int moneyValue, int scoreLoss,
+                                int stallPercent, Color color, int radius) {
+        this.id = id;
+        this.name = name;
+        this.health = health;
+        this.speed = speed;
+        this.moneyValue = moneyValue;
+        this.scoreLoss = scoreLoss;
+        this.stallPercent = stallPercent;
+        this.color = color;
+        this.radius = radius;
+    }
+
+    /**
+    * Registers a new kind of Monster. Types are given ids in the order they
+    * are registered, so a game saved with extra types must register them in
+    * the same order before it is loaded. The registry is copied on each
+    * registration, so games running on other threads never see it half
+    * updated
+    *
+    * @param name The name used for the type in wave files
+    * @param health The health a Monster of this type starts with
+    * @param speed How many times faster than a Regular Monster it moves
+    * @param moneyValue The money gained when killing it
+    * @param scoreLoss The score lost when it reaches the end of the path
+    * @param stallPercent The chance out of 100 that it stands still on a tick
+    * @param color The color it is drawn in
+    * @param radius The radius of the circle it is drawn as
+    * @return MonsterType The registered type
+    */
+    public static synchronized MonsterType register(String name, int health,
+                                    int speed, int moneyValue, int scoreLoss,
+                                    int stallPercent, Color color, int radius) {
+        int id = registry.length;
+        if (id == MAX_TYPES) {
+            throw new IllegalStateException("too many monster types");
+        }
+        if (forName(name) != null) {
+            throw new IllegalArgumentException("monster type " + name
+                                                    + " already registered");
+        }
+        MonsterType type = new MonsterType(id, name, health, speed,
+                        moneyValue, scoreLoss, stallPercent, color, radius);
+        MonsterType[] types = Arrays.copyOf(registry, id + 1);
+        types[id] = type;
+        maxRadius = Math.max(maxRadius, radius);
+        registry = types;
+        return type;
+    }
+
+    /**
+    * Gets a registered type by its id
+    *
+    * @param id The id of the type, such as MonsterType.REGULAR
+    * @return MonsterType The type with that id
+    */
+    public static MonsterType get(int id) {
+        return registry[id];
+    }
+
+    /**
+    * Finds a registered type by its name, ignoring case
+    *
+    * @param name The name of the type, such as "regular"
+    * @return MonsterType The type with that name, or null if there is none
+    */
+    public static MonsterType forName(String name) {
+        for (MonsterType type : registry) {
+            if (type.name.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+    * Gets the number of registered types
+    *
+    * @return int The number of types; ids run from 0 to one less than this
+    */
+    public static int count() {
+        return registry.length;
+    }
+
+    /**
+    * Gets the radius of the largest registered type
+    *
+    * @return maxRadius The largest radius a Monster is drawn with
+    */
+    public static int getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+    * Draws a Monster of this type to the GUI
+    *
+    * @param g The Graphics object that can draw to the GUI
+    * @param x The x coordinate of the Monster being drawn
+    * @param y The y coordinate of the Monster being drawn
+    * @param beingAttacked Whether or not a Tower just attacked the Monster
+    */
+    public void draw(Graphics g, int x, int y, boolean beingAttacked) {
+        g.setColor(color);
+        g.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+        if (beingAttacked) {
+            g.setColor(Color.WHITE);
+            g.fillOval(x - 4, y - 4, 8, 8);
+        }
+    }
+
+    /**
+    * Gets the id Monsters of this type are stored with
+    *
+    * @return id The id of the type
+    */
+    public int getId() {
+        return id;
+    }
+
+    /**
+    * Gets the name of the type
+    *
+    * @return name The name used for the type in wave files
+    */
+    public String getName() {
+        return name;
+    }
+
+    /**
+    * Gets the health a Monster of this type starts with
+    *
+    * @return health The starting health
+    */
+    public int getHealth() {
+        return health;
+    }
+
+    /**
+    * Gets the speed of the type
+    *
+    * @return speed How many times faster than a Regular Monster it moves
+    */
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+    * Gets the money a Monster of this type is worth
+    *
+    * @return moneyValue The money earned from killing it
+    */
+    public int getMoneyValue() {
+        return moneyValue;
+    }
+
+    /**
+    * Gets the score lost when a Monster of this type reaches the end
+    *
+    * @return scoreLoss The score lost by letting it through
+    */
+    public int getScoreLoss() {
+        return scoreLoss;
+    }
+
+    /**
+    * Gets how often a Monster of this type stands still
+    *
+    * @return stallPercent The chance out of 100 that it does not move on a
+    * tick
+    */
+    public int getStallPercent() {
+        return stallPercent;
+    }
+
+    /**
+    * Gets the color Monsters of this type are drawn in
+    *
+    * @return color The color of the type
+    */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+    * Gets the size Monsters of this type are drawn at
+    *
+    * @return radius The radius of the circle drawn
+    */
+    public int getRadius() {
+        return radius;
+    }
+}
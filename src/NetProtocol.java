@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * NetProtocol holds the constants and number encodings shared by the
+ * GameServer and GameClient. Every message in either direction is an int
+ * length, counting the type byte and the body, followed by a type byte and
+ * the body. Numbers in bodies are written as variable length integers, the
+ * same way InputLog writes them, so most take a byte or two
+ *
+ * Client to server:
+ *
+ *     PLACE_TOWER  Tower type byte, x, y
+ *     SEND_WAVE    nothing
+ *     SPECTATE     nothing. Sent first by a client that only watches; the
+ *                  server disconnects a spectator that sends commands
+ *
+ * Server to client:
+ *
+ *     FRAME        the state of the game after a tick, see StateEncoder
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class NetProtocol {
+
+    public static final int DEFAULT_PORT = 4455;
+    public static final int HEADER_SIZE = 5;
+    public static final int MAX_COMMAND_SIZE = 64;
+
+    public static final int FRAME = 1;
+    public static final int PLACE_TOWER = 2;
+    public static final int SEND_WAVE = 3;
+    public static final int SPECTATE = 4;
+
+    /**
+    * Starts a message, leaving room for its length to be filled in by
+    * finishMessage
+    *
+    * @param buffer The buffer to write to
+    * @param type The type of the message, such as FRAME
+    * @return int The position the message starts at
+    */
+    public static int startMessage(ByteBuffer buffer, int type) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put((byte) type);
+        return start;
+    }
+
+    /**
+    * Fills in the length of a message once its body has been written
+    *
+    * @param buffer The buffer the message was written to
+    * @param start The position returned by startMessage
+    */
+    public static void finishMessage(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    /**
+    * Finds the length of the next whole message in a buffer being read
+    *
+    * @param buffer The buffer to read from
+    * @param maxSize The largest message expected
+    * @return int The length of the message after its length field, or -1 if
+    * the whole message has not arrived yet
+    * @throws IOException If the message is empty or larger than maxSize
+    */
+    public static int nextMessageLength(ByteBuffer buffer, int maxSize)
+                                                        throws IOException {
+        if (buffer.remaining() < 4) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < 1 || length > maxSize) {
+            throw new IOException("bad message length " + length);
+        }
+        return buffer.remaining() - 4 < length ? -1 : length;
+    }
+
+    /**
+    * Writes a non-negative int using 7 bits per byte, with the high bit set
+    * on every byte but the last
+    *
+    * @param buffer The buffer to write to
+    * @param value The number to write
+    */
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+    * Reads a number written by putVarInt
+    *
+    * @param buffer The buffer to read from
+    * @return int The number read
+    * @throws IOException If the number is longer than an int
+    */
+    public static int getVarInt(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IOException("variable length int too long");
+            }
+            b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+    * Writes a signed int so that small negative numbers stay small
+    *
+    * @param buffer The buffer to write to
+    * @param value The number to write
+    */
+    public static void putSignedVarInt(ByteBuffer buffer, int value) {
+        putVarInt(buffer, (int) InputLog.encodeZigZag(value));
+    }
+
+    /**
+    * Reads a number written by putSignedVarInt
+    *
+    * @param buffer The buffer to read from
+    * @return int The number read
+    * @throws IOException If the number is longer than an int
+    */
+    public static int getSignedVarInt(ByteBuffer buffer) throws IOException {
+        return InputLog.decodeZigZag(getVarInt(buffer) & 0xFFFFFFFFL);
+    }
+}
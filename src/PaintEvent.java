@@ -0,0 +1,68 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A PaintEvent is a Java Flight Recorder event timing one paintComponent
+ * call of the GamePanel. Only paints slower than THRESHOLD_NANOS are
+ * recorded, and like a TickPhaseEvent it is only created for a slow paint
+ * while the event is enabled, so painting allocates nothing for it
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+@Name("towerdefense.Paint")
+@Label("Game Panel Paint")
+@Category("Tower Defense")
+@Description("One repaint of the game panel")
+@StackTrace(false)
+public class PaintEvent extends Event {
+
+    public static final long THRESHOLD_NANOS = 1000000L;
+
+    private static final EventType TYPE =
+                                    EventType.getEventType(PaintEvent.class);
+
+    @Label("Paint Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long paintTime;
+
+    @Label("Static Layer Redrawn")
+    private boolean staticLayerRedrawn;
+
+    @Label("Wave Number")
+    private int waveNumber;
+
+    @Label("Monster Count")
+    private int monsterCount;
+
+    @Label("Tower Count")
+    private int towerCount;
+
+    /**
+    * Records a paint if it was slower than THRESHOLD_NANOS and the event is
+    * enabled
+    *
+    * @param engine The game that was painted
+    * @param staticLayerRedrawn Whether the Towers and path were drawn again
+    * @param startNanos The System.nanoTime at which the paint started
+    */
+    public static void record(GameEngine engine, boolean staticLayerRedrawn,
+                                                        long startNanos) {
+        long paintTime = System.nanoTime() - startNanos;
+        if (paintTime >= THRESHOLD_NANOS && TYPE.isEnabled()) {
+            PaintEvent event = new PaintEvent();
+            event.paintTime = paintTime;
+            event.staticLayerRedrawn = staticLayerRedrawn;
+            event.waveNumber = engine.getWaveNumber();
+            event.monsterCount = engine.getMonsters().size();
+            event.towerCount = engine.getTowers().size();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * PathCoverage holds, for every Tower, the stretches of the path it can
+ * reach as intervals of distance along the path. Towers never move and
+ * Monsters are always on the path, so the intervals are worked out once when
+ * a Tower is placed. Finding a Tower's target is then a binary search into
+ * the ordered MonsterStore for each interval instead of a distance check
+ * against every nearby Monster
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class PathCoverage {
+
+    private CompiledPath path;
+    private int towerCount, intervalCount;
+    private int[] firstInterval, nearDistance, farDistance;
+
+    /**
+    * Constructs coverage for a path with no Towers yet
+    *
+    * @param path The compiled Tower Defense path
+    */
+    public PathCoverage(CompiledPath path) {
+        this.path = path;
+        firstInterval = new int[17];
+        nearDistance = new int[16];
+        farDistance = new int[16];
+        towerCount = 0;
+        intervalCount = 0;
+    }
+
+    /**
+    * Works out the intervals of the path a Tower can reach and adds them as
+    * the next Tower. Towers must be added in the same order as the tower
+    * list so that their indexes match
+    *
+    * @param tower The Tower that was placed
+    */
+    public void addTower(Tower tower) {
+        if (towerCount + 1 == firstInterval.length) {
+            firstInterval = Arrays.copyOf(firstInterval, towerCount * 2 + 1);
+        }
+        int reach = tower.getRadius() + 1;
+        int towerX = tower.getX();
+        int towerY = tower.getY();
+        int length = path.getLength();
+        int start = -1;
+        for (int segment = 0; segment < path.getSegmentCount(); segment++) {
+            int from = path.getStartDistance(segment);
+            int to = segment == path.getSegmentCount() - 1 ? length
+                                : path.getStartDistance(segment + 1) - 1;
+            if (!segmentNear(segment, from, to, towerX, towerY, reach)) {
+                if (start >= 0) {
+                    addInterval(start, from - 1);
+                    start = -1;
+                }
+                continue;
+            }
+            for (int d = from; d <= to; d++) {
+                boolean inReach = tower.canReach(path.getX(segment, d),
+                                                        path.getY(segment, d));
+                if (inReach && start < 0) {
+                    start = d;
+                } else if (!inReach && start >= 0) {
+                    addInterval(start, d - 1);
+                    start = -1;
+                }
+            }
+        }
+        if (start >= 0) {
+            addInterval(start, length);
+        }
+        towerCount++;
+        firstInterval[towerCount] = intervalCount;
+    }
+
+    /**
+    * Works out the intervals of every Tower again for a new path
+    *
+    * @param path The new compiled path
+    * @param towers Every Tower on the map, in order
+    */
+    public void setPath(CompiledPath path, ArrayList<Tower> towers) {
+        this.path = path;
+        towerCount = 0;
+        intervalCount = 0;
+        for (Tower tower : towers) {
+            addTower(tower);
+        }
+    }
+
+    /**
+    * Finds the farthest along Monster a Tower can reach. The intervals are
+    * searched from the end of the path back, so the first Monster found is
+    * the farthest along, which is the first in store order
+    *
+    * @param tower The index of the Tower in the tower list
+    * @param monsters The Monsters, ordered farthest along first
+    * @return int The index of the target in monsters, or -1 if no Monster is
+    * in reach
+    */
+    public int findTarget(int tower, MonsterStore monsters) {
+        for (int i = firstInterval[tower + 1] - 1; i >= firstInterval[tower];
+                                                                        i--) {
+            int index = monsters.firstAtOrBefore(farDistance[i]);
+            if (index < monsters.size()
+                    && monsters.getDistanceTraveled(index) >= nearDistance[i]) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void addInterval(int near, int far) {
+        if (intervalCount == nearDistance.length) {
+            nearDistance = Arrays.copyOf(nearDistance, intervalCount * 2);
+            farDistance = Arrays.copyOf(farDistance, intervalCount * 2);
+        }
+        nearDistance[intervalCount] = near;
+        farDistance[intervalCount] = far;
+        intervalCount++;
+    }
+
+    private boolean segmentNear(int segment, int from, int to, int towerX,
+                                                    int towerY, int reach) {
+        int x1 = path.getX(segment, from);
+        int y1 = path.getY(segment, from);
+        int x2 = path.getX(segment, to);
+        int y2 = path.getY(segment, to);
+        return towerX >= Math.min(x1, x2) - reach
+                && towerX <= Math.max(x1, x2) + reach
+                && towerY >= Math.min(y1, y2) - reach
+                && towerY <= Math.max(y1, y2) + reach;
+    }
+}
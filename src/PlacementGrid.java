@@ -0,0 +1,253 @@
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A PlacementGrid answers whether a Tower can be placed at a location in
+ * constant time. Towers are kept in buckets of Tower sized cells, so a new
+ * Tower only has to be checked against the Towers in the nine cells around
+ * it. The path is marked in a mask of small cells with a summed area table
+ * over it, so whether a Tower covers any of the path is four lookups. The
+ * table is never changed once built, so grids given the same path over the
+ * same area share one, and many games on the default path do not each
+ * hold a copy
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class PlacementGrid {
+
+    public static final int CELL_SIZE = Tower.TOWER_SIZE;
+    public static final int PATH_CELL_SIZE = 4;
+    public static final double PATH_HALF_WIDTH = 3.5;
+    public static final int SHARED_PATHS = 8;
+
+    private static final Map<String, int[]> sharedPathSums =
+                                new LinkedHashMap<String, int[]>(16, 0.75f,
+                                                                    true) {
+        protected boolean removeEldestEntry(Map.Entry<String, int[]> e) {
+            return size() > SHARED_PATHS;
+        }
+    };
+
+    private Rectangle bounds;
+    private int columns, rows;
+    private int[] cellHead, next, towerX, towerY;
+    private int towerCount;
+
+    private int pathColumns, pathRows;
+    private int[] pathSums;
+
+    /**
+    * Constructs an empty grid covering an area of the map
+    *
+    * @param bounds The area Towers can be placed in
+    */
+    public PlacementGrid(Rectangle bounds) {
+        this.bounds = bounds;
+        columns = (bounds.width + CELL_SIZE - 1) / CELL_SIZE;
+        rows = (bounds.height + CELL_SIZE - 1) / CELL_SIZE;
+        cellHead = new int[columns * rows];
+        Arrays.fill(cellHead, -1);
+        next = new int[16];
+        towerX = new int[16];
+        towerY = new int[16];
+        towerCount = 0;
+
+        pathColumns = (bounds.width + PATH_CELL_SIZE - 1) / PATH_CELL_SIZE;
+        pathRows = (bounds.height + PATH_CELL_SIZE - 1) / PATH_CELL_SIZE;
+        pathSums = new int[0];
+    }
+
+    /**
+    * Marks the cells covered by a path, replacing any path marked before.
+    * A cell is marked if any part of it could be under the drawn path. The
+    * tables of the last SHARED_PATHS paths marked by any grid are kept, and
+    * one is reused if this path is the same
+    *
+    * @param path The ArrayList of Lines that defines the path
+    */
+    public void setPath(ArrayList<Line> path) {
+        int[] key = new int[4 + path.size() * 4];
+        key[0] = bounds.x;
+        key[1] = bounds.y;
+        key[2] = bounds.width;
+        key[3] = bounds.height;
+        for (int i = 0; i < path.size(); i++) {
+            Line line = path.get(i);
+            key[4 + i * 4] = (int) line.getStart().getX();
+            key[5 + i * 4] = (int) line.getStart().getY();
+            key[6 + i * 4] = (int) line.getEnd().getX();
+            key[7 + i * 4] = (int) line.getEnd().getY();
+        }
+        String name = Arrays.toString(key);
+        synchronized (sharedPathSums) {
+            pathSums = sharedPathSums.get(name);
+        }
+        if (pathSums == null) {
+            pathSums = buildPathSums(path);
+            synchronized (sharedPathSums) {
+                sharedPathSums.put(name, pathSums);
+            }
+        }
+    }
+
+    /**
+    * Records a Tower as taking up its place on the map. Towers are never
+    * removed
+    *
+    * @param tower The Tower that was placed
+    */
+    public void addTower(Tower tower) {
+        if (towerCount == next.length) {
+            next = Arrays.copyOf(next, towerCount * 2);
+            towerX = Arrays.copyOf(towerX, towerCount * 2);
+            towerY = Arrays.copyOf(towerY, towerCount * 2);
+        }
+        int cell = cellOf(tower.getX(), tower.getY());
+        towerX[towerCount] = tower.getX();
+        towerY[towerCount] = tower.getY();
+        next[towerCount] = cellHead[cell];
+        cellHead[cell] = towerCount;
+        towerCount++;
+    }
+
+    /**
+    * Decides whether a Tower can be placed with its top left corner at a
+    * location: the corner must be on the map and the Tower must not overlap
+    * another Tower or the path
+    *
+    * @param x The x coordinate of the top left corner of the Tower
+    * @param y The y coordinate of the top left corner of the Tower
+    * @return boolean Whether or not a Tower can be placed there
+    */
+    public boolean canPlace(int x, int y) {
+        return bounds.contains(x, y) && !overlapsTower(x, y)
+                                                    && !overlapsPath(x, y);
+    }
+
+    /**
+    * Decides whether a Tower at a location would overlap a placed Tower
+    *
+    * @param x The x coordinate of the top left corner of the Tower
+    * @param y The y coordinate of the top left corner of the Tower
+    * @return boolean Whether or not it overlaps another Tower
+    */
+    public boolean overlapsTower(int x, int y) {
+        int column = column(x);
+        int row = row(y);
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1);
+                                                                        r++) {
+            for (int c = Math.max(0, column - 1);
+                                c <= Math.min(columns - 1, column + 1); c++) {
+                for (int t = cellHead[r * columns + c]; t >= 0; t = next[t]) {
+                    if (Math.abs(towerX[t] - x) < Tower.TOWER_SIZE
+                            && Math.abs(towerY[t] - y) < Tower.TOWER_SIZE) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+    * Decides whether a Tower at a location would cover any of the path
+    *
+    * @param x The x coordinate of the top left corner of the Tower
+    * @param y The y coordinate of the top left corner of the Tower
+    * @return boolean Whether or not it overlaps the path
+    */
+    public boolean overlapsPath(int x, int y) {
+        if (pathSums.length == 0) {
+            return false;
+        }
+        int minColumn = pathColumn(x - bounds.x);
+        int maxColumn = pathColumn(x - bounds.x + Tower.TOWER_SIZE - 1);
+        int minRow = pathRow(y - bounds.y);
+        int maxRow = pathRow(y - bounds.y + Tower.TOWER_SIZE - 1);
+        int width = pathColumns + 1;
+        int covered = pathSums[(maxRow + 1) * width + maxColumn + 1]
+                            - pathSums[minRow * width + maxColumn + 1]
+                            - pathSums[(maxRow + 1) * width + minColumn]
+                            + pathSums[minRow * width + minColumn];
+        return covered > 0;
+    }
+
+    private int[] buildPathSums(ArrayList<Line> path) {
+        boolean[] mask = new boolean[pathColumns * pathRows];
+        double reach = PATH_HALF_WIDTH + PATH_CELL_SIZE * Math.sqrt(0.5);
+        for (Line line : path) {
+            double x1 = line.getStart().getX() - bounds.x;
+            double y1 = line.getStart().getY() - bounds.y;
+            double x2 = line.getEnd().getX() - bounds.x;
+            double y2 = line.getEnd().getY() - bounds.y;
+            int minColumn = pathColumn(Math.min(x1, x2) - reach);
+            int maxColumn = pathColumn(Math.max(x1, x2) + reach);
+            int minRow = pathRow(Math.min(y1, y2) - reach);
+            int maxRow = pathRow(Math.max(y1, y2) + reach);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    double cx = (column + 0.5) * PATH_CELL_SIZE;
+                    double cy = (row + 0.5) * PATH_CELL_SIZE;
+                    if (distanceToSegment(cx, cy, x1, y1, x2, y2) <= reach) {
+                        mask[row * pathColumns + column] = true;
+                    }
+                }
+            }
+        }
+
+        int width = pathColumns + 1;
+        int[] sums = new int[width * (pathRows + 1)];
+        for (int row = 0; row < pathRows; row++) {
+            int rowSum = 0;
+            for (int column = 0; column < pathColumns; column++) {
+                if (mask[row * pathColumns + column]) {
+                    rowSum++;
+                }
+                sums[(row + 1) * width + column + 1] =
+                                    sums[row * width + column + 1] + rowSum;
+            }
+        }
+        return sums;
+    }
+
+    private static double distanceToSegment(double px, double py, double x1,
+                                        double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = ((px - x1) * dx + (py - y1) * dy) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+        double ex = x1 + t * dx - px;
+        double ey = y1 + t * dy - py;
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    private int cellOf(int x, int y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, (x - bounds.x) / CELL_SIZE));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, (y - bounds.y) / CELL_SIZE));
+    }
+
+    private int pathColumn(double x) {
+        int column = (int) Math.floor(x / PATH_CELL_SIZE);
+        return Math.max(0, Math.min(pathColumns - 1, column));
+    }
+
+    private int pathRow(double y) {
+        int row = (int) Math.floor(y / PATH_CELL_SIZE);
+        return Math.max(0, Math.min(pathRows - 1, row));
+    }
+}
@@ -0,0 +1,79 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * ReplayRunner plays back a log written by an InputRecorder as fast as
+ * possible, checking the game state against the recorded checksum after
+ * every tick. A mismatch means the game is not deterministic, or has changed
+ * since the log was recorded, at that tick
+ *
+ * Usage: java ReplayRunner logFile
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class ReplayRunner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java ReplayRunner logFile");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        InputLog log = new InputLog(new File(args[0]));
+        GameEngine engine;
+        try {
+            engine = replay(log);
+        } finally {
+            log.close();
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (engine == null) {
+            System.exit(2);
+        }
+        System.out.printf("Replayed %d ticks in %.1f ms, every checksum "
+                        + "matched. Wave %d, score %d, money %d%n",
+                        engine.getTick(), millis, engine.getWaveNumber(),
+                        engine.getScore(), engine.getMoney());
+    }
+
+    /**
+    * Replays a log from its current position to the end
+    *
+    * @param log The log to replay
+    * @return GameEngine The replayed game, or null if a checksum did not
+    * match, in which case the mismatch is printed
+    * @throws IOException If the log cannot be read
+    */
+    public static GameEngine replay(InputLog log) throws IOException {
+        GameEngine engine = new GameEngine(log.getSeed(),
+                                                    log.getWaveSchedule());
+        while (log.next()) {
+            while (engine.getTick() < log.getTick() && engine.isRunning()) {
+                engine.step();
+            }
+            if (engine.getTick() != log.getTick()) {
+                System.out.println("Game ended at tick " + engine.getTick()
+                            + " but the log continues to " + log.getTick());
+                return null;
+            }
+            int operation = log.getOperation();
+            if (operation == InputLog.CHECKSUM) {
+                int actual = engine.checksum();
+                if (actual != log.getFirst()) {
+                    System.out.printf("Checksum mismatch at tick %d: "
+                                    + "recorded %08x, replayed %08x%n",
+                                    log.getTick(), log.getFirst(), actual);
+                    return null;
+                }
+            } else if (operation == InputLog.PLACE_TOWER) {
+                engine.placeTower(new Point(log.getSecond(), log.getThird()),
+                                                            log.getFirst());
+            } else if (operation == InputLog.SEND_WAVE) {
+                engine.sendNextWave();
+            }
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,183 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * StateEncoder writes the state of a game after a tick as the body of a
+ * NetProtocol FRAME. A full frame holds everything a client needs to show
+ * the game; a delta frame holds only what changed since the previous delta
+ * frame or keyframe, so it only makes sense to a client that received every
+ * frame since its last full frame. A keyframe is a full frame that later
+ * deltas build on. A frame is:
+ *
+ *     tick            long
+ *     bits            byte: FULL, STILL_PLAYING, SPAWNING
+ *     score, money, wave number
+ *     path            full frames only: line count, then x1 y1 x2 y2 each
+ *     towers          index of the first Tower sent, count, then type byte,
+ *                     x and y each. Delta frames only send new Towers
+ *     monsters        count, then for each Monster in order, farthest along
+ *                     first: its handle's slot, a bits byte (NEW_MONSTER,
+ *                     BEING_ATTACKED), then for a new Monster its type byte
+ *                     and distance, otherwise the change in its distance
+ *
+ * Monsters are matched between frames by the slot of their MonsterStore
+ * handle, and a Monster whose handle changed is sent as new. A Monster left
+ * out of a frame has gone
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class StateEncoder {
+
+    public static final int FULL = 1;
+    public static final int STILL_PLAYING = 2;
+    public static final int SPAWNING = 4;
+
+    public static final int NEW_MONSTER = 1;
+    public static final int BEING_ATTACKED = 2;
+
+    private long[] lastHandles;
+    private int[] lastDistances;
+    private int lastTowerCount;
+
+    /**
+    * Constructs an encoder whose first delta frame holds every Tower and
+    * Monster
+    */
+    public StateEncoder() {
+        lastHandles = new long[64];
+        lastDistances = new int[64];
+        Arrays.fill(lastHandles, MonsterStore.NO_HANDLE);
+        lastTowerCount = 0;
+    }
+
+    /**
+    * Gets the most bytes a frame of a game could take
+    *
+    * @param engine The game to encode
+    * @return int The largest size of a frame body
+    */
+    public static int getMaxFrameSize(GameEngine engine) {
+        return 8 + 1 + 3 * 5
+                    + 5 + engine.getPath().size() * 4 * 5
+                    + 10 + engine.getTowers().size() * (1 + 2 * 5)
+                    + 5 + engine.getMonsters().size() * (5 + 1 + 1 + 5);
+    }
+
+    /**
+    * Writes a delta frame holding what changed since the previous delta
+    * frame or keyframe, and remembers the state for the next one
+    *
+    * @param engine The game to encode
+    * @param buffer The buffer to write to, with room for getMaxFrameSize
+    */
+    public void encodeDelta(GameEngine engine, ByteBuffer buffer) {
+        encode(engine, buffer, false);
+        remember(engine);
+    }
+
+    /**
+    * Writes a full frame and remembers the state, so that the next delta
+    * frame builds on it
+    *
+    * @param engine The game to encode
+    * @param buffer The buffer to write to, with room for getMaxFrameSize
+    */
+    public void encodeKeyframe(GameEngine engine, ByteBuffer buffer) {
+        encode(engine, buffer, true);
+        remember(engine);
+    }
+
+    /**
+    * Writes a full frame of the game as it is now. The state remembered for
+    * delta frames is left alone, so a full frame written right after a
+    * delta frame describes the same state
+    *
+    * @param engine The game to encode
+    * @param buffer The buffer to write to, with room for getMaxFrameSize
+    */
+    public void encodeFull(GameEngine engine, ByteBuffer buffer) {
+        encode(engine, buffer, true);
+    }
+
+    private void remember(GameEngine engine) {
+        MonsterStore monsters = engine.getMonsters();
+        for (int i = 0; i < monsters.size(); i++) {
+            long handle = monsters.getHandle(i);
+            int slot = (int) handle;
+            if (slot >= lastHandles.length) {
+                int length = Math.max(slot + 1, lastHandles.length * 2);
+                int oldLength = lastHandles.length;
+                lastHandles = Arrays.copyOf(lastHandles, length);
+                lastDistances = Arrays.copyOf(lastDistances, length);
+                Arrays.fill(lastHandles, oldLength, length,
+                                                    MonsterStore.NO_HANDLE);
+            }
+            lastHandles[slot] = handle;
+            lastDistances[slot] = monsters.getDistanceTraveled(i);
+        }
+        lastTowerCount = engine.getTowers().size();
+    }
+
+    private void encode(GameEngine engine, ByteBuffer buffer, boolean full) {
+        buffer.putLong(engine.getTick());
+        int bits = full ? FULL : 0;
+        if (engine.isStillPlaying()) {
+            bits |= STILL_PLAYING;
+        }
+        if (engine.isSpawning()) {
+            bits |= SPAWNING;
+        }
+        buffer.put((byte) bits);
+        NetProtocol.putVarInt(buffer, engine.getScore());
+        NetProtocol.putVarInt(buffer, engine.getMoney());
+        NetProtocol.putVarInt(buffer, engine.getWaveNumber());
+
+        if (full) {
+            ArrayList<Line> path = engine.getPath();
+            NetProtocol.putVarInt(buffer, path.size());
+            for (Line line : path) {
+                NetProtocol.putSignedVarInt(buffer,
+                                            (int) line.getStart().getX());
+                NetProtocol.putSignedVarInt(buffer,
+                                            (int) line.getStart().getY());
+                NetProtocol.putSignedVarInt(buffer,
+                                            (int) line.getEnd().getX());
+                NetProtocol.putSignedVarInt(buffer,
+                                            (int) line.getEnd().getY());
+            }
+        }
+
+        ArrayList<Tower> towers = engine.getTowers();
+        int firstTower = full ? 0 : lastTowerCount;
+        NetProtocol.putVarInt(buffer, firstTower);
+        NetProtocol.putVarInt(buffer, towers.size() - firstTower);
+        for (int i = firstTower; i < towers.size(); i++) {
+            Tower tower = towers.get(i);
+            buffer.put((byte) tower.getType());
+            NetProtocol.putSignedVarInt(buffer, tower.getX());
+            NetProtocol.putSignedVarInt(buffer, tower.getY());
+        }
+
+        MonsterStore monsters = engine.getMonsters();
+        NetProtocol.putVarInt(buffer, monsters.size());
+        for (int i = 0; i < monsters.size(); i++) {
+            long handle = monsters.getHandle(i);
+            int slot = (int) handle;
+            int distance = monsters.getDistanceTraveled(i);
+            int monsterBits = monsters.isBeingAttacked(i) ? BEING_ATTACKED : 0;
+            NetProtocol.putVarInt(buffer, slot);
+            if (full || slot >= lastHandles.length
+                                        || lastHandles[slot] != handle) {
+                buffer.put((byte) (monsterBits | NEW_MONSTER));
+                buffer.put((byte) monsters.getType(i));
+                NetProtocol.putVarInt(buffer, distance);
+            } else {
+                buffer.put((byte) monsterBits);
+                NetProtocol.putSignedVarInt(buffer,
+                                            distance - lastDistances[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * TargetSearch finds the target of every Tower in a range of the tower list
+ * on a fork/join pool. It only reads the Monsters and the path coverage,
+ * writing each Tower's target into its own slot of an array, so they never
+ * interfere with each other and the GameEngine can apply the damage
+ * afterwards in tower order
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class TargetSearch extends RecursiveAction {
+
+    public static final int TOWERS_PER_TASK = 256;
+
+    private PathCoverage coverage;
+    private MonsterStore monsters;
+    private int[] targets;
+    private int from, to;
+
+    /**
+    * Constructs a task finding targets for Towers from up to but not
+    * including to
+    *
+    * @param coverage The stretches of path each Tower reaches
+    * @param monsters The Monsters to target
+    * @param targets The array that receives the target of each Tower, or -1
+    * @param from The first Tower to search for
+    * @param to One past the last Tower to search for
+    */
+    public TargetSearch(PathCoverage coverage, MonsterStore monsters,
+                                            int[] targets, int from, int to) {
+        this.coverage = coverage;
+        this.monsters = monsters;
+        this.targets = targets;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+    * Searches directly if there are few Towers, otherwise splits them in half
+    */
+    protected void compute() {
+        if (to - from <= TOWERS_PER_TASK) {
+            for (int i = from; i < to; i++) {
+                targets[i] = coverage.findTarget(i, monsters);
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new TargetSearch(coverage, monsters, targets, from, middle),
+                    new TargetSearch(coverage, monsters, targets, middle, to));
+    }
+}
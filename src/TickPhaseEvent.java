@@ -0,0 +1,87 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A TickPhaseEvent is a Java Flight Recorder event timing one phase of a
+ * GameEngine step, such as moving or firing. Only phases slower than
+ * THRESHOLD_NANOS are recorded, so it can stay enabled while the game is
+ * played and still show which phase a stutter came from
+ *
+ * Phases are timed with System.nanoTime and an event is only created for a
+ * slow phase while the event is enabled, so a tick allocates nothing
+ * whether or not a recording is running. The event is committed when the
+ * phase ends, with the phase's time as a field
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+@Name("towerdefense.TickPhase")
+@Label("Tick Phase")
+@Category("Tower Defense")
+@Description("One phase of a game tick")
+@StackTrace(false)
+public class TickPhaseEvent extends Event {
+
+    public static final long THRESHOLD_NANOS = 1000000L;
+
+    public static final String SPAWN_MONSTERS = "spawnMonsters";
+    public static final String MOVE_ALL = "moveAll";
+    public static final String ORDER_MONSTERS = "orderMonsters";
+    public static final String FIRE_TOWERS = "fireTowers";
+    public static final String CHECK_FOR_DEATH = "checkForDeath";
+
+    private static final EventType TYPE =
+                                EventType.getEventType(TickPhaseEvent.class);
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Phase Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long phaseTime;
+
+    @Label("Tick")
+    private long tick;
+
+    @Label("Wave Number")
+    private int waveNumber;
+
+    @Label("Monster Count")
+    private int monsterCount;
+
+    @Label("Tower Count")
+    private int towerCount;
+
+    /**
+    * Records a phase if it was slower than THRESHOLD_NANOS and the event is
+    * enabled
+    *
+    * @param phase The name of the phase, such as MOVE_ALL
+    * @param engine The game the phase ran in
+    * @param startNanos The System.nanoTime at which the phase started
+    * @return long The System.nanoTime at which the phase ended, so that it
+    * can start the next phase
+    */
+    public static long record(String phase, GameEngine engine,
+                                                        long startNanos) {
+        long endNanos = System.nanoTime();
+        long phaseTime = endNanos - startNanos;
+        if (phaseTime >= THRESHOLD_NANOS && TYPE.isEnabled()) {
+            TickPhaseEvent event = new TickPhaseEvent();
+            event.phase = phase;
+            event.phaseTime = phaseTime;
+            event.tick = engine.getTick();
+            event.waveNumber = engine.getWaveNumber();
+            event.monsterCount = engine.getMonsters().size();
+            event.towerCount = engine.getTowers().size();
+            event.commit();
+        }
+        return endNanos;
+    }
+}
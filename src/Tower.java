@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -15,8 +14,9 @@ public abstract class Tower {
 
     public static final int BASIC_TOWER = 0;
     public static final int ADVANCED_TOWER = 1;
-    private final int towerHeight = 24;
-    private final int towerWidth = 24;
+    public static final int TOWER_SIZE = 24;
+    private final int towerHeight = TOWER_SIZE;
+    private final int towerWidth = TOWER_SIZE;
     private int x, y, damage, radius, cost;
     protected Rectangle drawRectangle;
 
@@ -93,6 +93,15 @@ public abstract class Tower {
         return radius;
     }
 
+    /**
+    * Gets the damage the Tower inflicts each turn
+    *
+    * @return damage The damage of one hit from the Tower
+    */
+    public int getDamage() {
+        return damage;
+    }
+
     /**
     * Gets the cost in money of creating this Tower
     *
@@ -113,45 +122,44 @@ public abstract class Tower {
     }
 
     /**
-    * Decides if two Towers overlap in the Tower itself, not including reach
+    * Decides if this Tower can go on the map, which it cannot if it overlaps
+    * a Tower already there or the path
     *
-    * @param towers The ArrayList of Towers currently on the map
-    * @return boolean Whether or not this Tower intersects with a Tower on the
-    * map
-    */
-    public boolean canPlaceOnMap(ArrayList<Tower> towers) {
-        if (!GamePanel.BOUNDS.contains(this.x, this.y)) {
-            return false;
-        }
-        for (Tower tower : towers) {
-            if (tower.intersectsWith(this)) {
-                return false;
-            }
-        }
-        return true;
+    * @param grid The PlacementGrid holding the Towers and path on the map
+    * @return boolean Whether or not this Tower can be placed
+    */
+    public boolean canPlaceOnMap(PlacementGrid grid) {
+        return grid.canPlace(x, y);
     }
 
     /**
     * Inflicts damage on a Monster
     *
-    * @param monster The Monster taking the damage
+    * @param monsters The MonsterStore holding the Monster
+    * @param i The index of the Monster taking the damage
     */
-    public void fire(Monster monster) {
-        monster.takeHit(damage);
+    public void fire(MonsterStore monsters, int i) {
+        monsters.takeHit(i, damage);
     }
 
     /**
-    * Decides whether or not this tower can reach a monster
+    * Decides whether or not this tower can reach a location
     *
-    * @param monster The Monster begin tested range for
-    * @return boolean Whether or not this Tower can reach the monster
+    * @param x1 The x coordinate of the Monster being tested range for
+    * @param y1 The y coordinate of the Monster being tested range for
+    * @return boolean Whether or not this Tower can reach the location
     */
-    public boolean canReach(Monster monster) {
-        int x1 = monster.getX();
-        int y1 = monster.getY();
+    public boolean canReach(int x1, int y1) {
         return Math.sqrt((x1 - x) * (x1 - x) + (y1 - y) * (y1 - y)) <= radius;
     }
 
+    /**
+    * Gets the type of this Tower
+    *
+    * @return int The int representation of this kind of Tower
+    */
+    public abstract int getType();
+
     /**
     * Draws the Tower's radius to the GUI
     *
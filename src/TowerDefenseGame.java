@@ -1,20 +1,77 @@
 import java.awt.BorderLayout;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
 import javax.swing.JFrame;
 
 /**
  * This class controls the presentation of the Tower Defense Game
  *
+ * Usage: java TowerDefenseGame [--seed n] [--record logFile]
+ *                              [--firing-threads n] [--waves waveFile]
+ *                              [--connect host[:port]]
+ *                              [--spectate host[:port]]
+ * Recorded games can be checked with ReplayRunner. With --connect the game
+ * is played on a GameServer instead, and the other options are ignored.
+ * --spectate watches a game on a GameServer without playing it
+ *
  * @author Graham Wright
  * @version 1.0
  */
 public class TowerDefenseGame {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        long seed = new Random().nextLong();
+        WaveSchedule schedule = WaveSchedule.createDefault();
+        File recording = null;
+        int firingThreads = 1;
+        String server = null;
+        boolean spectator = false;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[i + 1]);
+            } else if (args[i].equals("--waves")) {
+                schedule = WaveSchedule.load(new File(args[i + 1]));
+            } else if (args[i].equals("--record")) {
+                recording = new File(args[i + 1]);
+            } else if (args[i].equals("--firing-threads")) {
+                firingThreads = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--connect")) {
+                server = args[i + 1];
+            } else if (args[i].equals("--spectate")) {
+                server = args[i + 1];
+                spectator = true;
+            }
+        }
+        GameEngine engine;
+        if (server != null) {
+            int colon = server.lastIndexOf(':');
+            int port = NetProtocol.DEFAULT_PORT;
+            if (colon >= 0) {
+                port = Integer.parseInt(server.substring(colon + 1));
+                server = server.substring(0, colon);
+            }
+            engine = new GameClient(server, port, spectator).getEngine();
+        } else {
+            engine = new GameEngine(seed, schedule);
+            engine.setFiringThreads(firingThreads);
+        }
+        if (recording != null && server == null) {
+            final InputRecorder recorder = new InputRecorder(recording, seed,
+                                                                schedule);
+            engine.setInputRecorder(recorder);
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                public void run() {
+                    recorder.close();
+                }
+            });
+        }
+
         JFrame frame = new JFrame("Tower Defense");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         InputPanel input = new InputPanel();
         frame.add(input, BorderLayout.WEST);
-        frame.add(new GamePanel(input));
+        frame.add(new GamePanel(input, engine));
         frame.pack();
         frame.setVisible(true);
     }
@@ -0,0 +1,164 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A TowerPlan is a scripted list of Tower placements used to play games
+ * without a player. Each placement names the wave it should be made before,
+ * the Tower type and its location. Plans are read from text files with one
+ * placement per line:
+ *
+ *     # wave type x y
+ *     1 basic 250 540
+ *     4 advanced 170 300
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class TowerPlan {
+
+    private int size;
+    private int[] waves, types, xs, ys;
+
+    /**
+    * Constructs an empty TowerPlan
+    */
+    public TowerPlan() {
+        waves = new int[8];
+        types = new int[8];
+        xs = new int[8];
+        ys = new int[8];
+        size = 0;
+    }
+
+    /**
+    * Reads a TowerPlan from a text file. Blank lines and lines starting with
+    * # are skipped
+    *
+    * @param file The file to read
+    * @return TowerPlan The plan described by the file
+    * @throws IOException If the file cannot be read or a line is malformed
+    */
+    public static TowerPlan load(File file) throws IOException {
+        TowerPlan plan = new TowerPlan();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 4) {
+                    throw new IOException(file + ":" + lineNumber
+                                        + ": expected \"wave type x y\"");
+                }
+                try {
+                    plan.add(Integer.parseInt(parts[0]), parseType(parts[1]),
+                                            Integer.parseInt(parts[2]),
+                                            Integer.parseInt(parts[3]));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + lineNumber + ": "
+                                                        + e.getMessage());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return plan;
+    }
+
+    /**
+    * Adds a placement to the end of the plan. Placements for the same wave
+    * are made in the order they were added
+    *
+    * @param wave The wave the Tower is placed before
+    * @param type The int representation of the Tower type
+    * @param x The x coordinate of the Tower
+    * @param y The y coordinate of the Tower
+    */
+    public void add(int wave, int type, int x, int y) {
+        if (size == waves.length) {
+            waves = Arrays.copyOf(waves, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        int i = size;
+        while (i > 0 && waves[i - 1] > wave) {
+            waves[i] = waves[i - 1];
+            types[i] = types[i - 1];
+            xs[i] = xs[i - 1];
+            ys[i] = ys[i - 1];
+            i--;
+        }
+        waves[i] = wave;
+        types[i] = type;
+        xs[i] = x;
+        ys[i] = y;
+        size++;
+    }
+
+    /**
+    * Gets the number of placements in the plan
+    *
+    * @return size The number of placements
+    */
+    public int size() {
+        return size;
+    }
+
+    /**
+    * Gets the wave a placement is made before
+    *
+    * @param i The index of the placement, in wave order
+    * @return int The wave number
+    */
+    public int getWave(int i) {
+        return waves[i];
+    }
+
+    /**
+    * Gets the Tower type of a placement
+    *
+    * @param i The index of the placement, in wave order
+    * @return int The int representation of the Tower type
+    */
+    public int getType(int i) {
+        return types[i];
+    }
+
+    /**
+    * Gets the x coordinate of a placement
+    *
+    * @param i The index of the placement, in wave order
+    * @return int The x coordinate of the Tower
+    */
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    /**
+    * Gets the y coordinate of a placement
+    *
+    * @param i The index of the placement, in wave order
+    * @return int The y coordinate of the Tower
+    */
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    private static int parseType(String name) {
+        if (name.equalsIgnoreCase("basic")) {
+            return Tower.BASIC_TOWER;
+        } else if (name.equalsIgnoreCase("advanced")) {
+            return Tower.ADVANCED_TOWER;
+        }
+        throw new IllegalArgumentException("unknown tower type " + name);
+    }
+}
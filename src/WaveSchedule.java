@@ -0,0 +1,316 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A WaveSchedule describes which Monsters each wave releases as data rather
+ * than code. It is a list of groups, each releasing a number of Monsters of
+ * one type over a range of waves, one every few ticks, with the number
+ * growing or shrinking by a fixed amount each wave. A group may also have a
+ * spread, a most number of extra Monsters added to it at random each wave,
+ * so that games with different seeds face different waves. Groups that
+ * share a wave are released one after another in the order they were
+ * added. Schedules are read from text files with one group per line, the
+ * spread being optional:
+ *
+ *     # waves type count growth spacing [spread]
+ *     1-4 regular 10 0 5
+ *     5-9 fast 1 1 5 2
+ *
+ * Before a wave starts the GameEngine compiles it into a flat list of spawn
+ * ticks and types, drawing the random counts from a generator seeded by the
+ * game, so that spawning is a cursor moving over an array
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+public class WaveSchedule {
+
+    public static final int DEFAULT_SPACING = 5;
+
+    private int size;
+    private int[] firstWaves, lastWaves, types, counts, growths, spacings;
+    private int[] spreads;
+
+    /**
+    * Constructs an empty WaveSchedule, whose waves release no Monsters
+    */
+    public WaveSchedule() {
+        firstWaves = new int[8];
+        lastWaves = new int[8];
+        types = new int[8];
+        counts = new int[8];
+        growths = new int[8];
+        spacings = new int[8];
+        spreads = new int[8];
+        size = 0;
+    }
+
+    /**
+    * Builds the schedule the game uses when no other one is given. The same
+    * schedule is in waves/default.txt as a starting point for new ones. It
+    * follows the old random ladder of Monster types: two and then four
+    * Regular Monsters, at most ten Monsters a wave from the third wave on,
+    * five Intense Monsters in waves 35 to 39 and two, three and then five
+    * Ultimate Monsters in the last waves. Until wave 35 some groups have a
+    * spread, so that the waves vary with the seed as the ladder's did
+    *
+    * @return WaveSchedule The default fifty waves
+    */
+    public static WaveSchedule createDefault() {
+        WaveSchedule schedule = new WaveSchedule();
+        int spacing = DEFAULT_SPACING;
+        schedule.add(1, 1, MonsterType.REGULAR, 2, 0, spacing);
+        schedule.add(2, 2, MonsterType.REGULAR, 4, 0, spacing);
+        schedule.add(3, 4, MonsterType.REGULAR, 8, 0, spacing, 2);
+        schedule.add(5, 9, MonsterType.REGULAR, 8, -1, spacing, 1);
+        schedule.add(5, 9, MonsterType.FAST, 1, 1, spacing);
+        schedule.add(10, 11, MonsterType.REGULAR, 4, 0, spacing, 1);
+        schedule.add(10, 11, MonsterType.FAST, 4, 0, spacing);
+        schedule.add(10, 11, MonsterType.FASTER, 1, 0, spacing);
+        schedule.add(12, 14, MonsterType.REGULAR, 3, 0, spacing, 1);
+        schedule.add(12, 14, MonsterType.FAST, 3, 0, spacing, 1);
+        schedule.add(12, 14, MonsterType.FASTER, 2, 0, spacing);
+        schedule.add(15, 19, MonsterType.FAST, 5, 0, spacing, 1);
+        schedule.add(15, 19, MonsterType.FASTER, 2, 0, spacing, 1);
+        schedule.add(15, 19, MonsterType.HARD, 1, 0, spacing);
+        schedule.add(20, 24, MonsterType.FASTER, 6, 0, spacing, 1);
+        schedule.add(20, 24, MonsterType.HARD, 3, 0, spacing);
+        schedule.add(25, 29, MonsterType.FASTER, 4, 0, spacing, 1);
+        schedule.add(25, 29, MonsterType.HARD, 3, 0, spacing, 1);
+        schedule.add(25, 29, MonsterType.INTENSE, 1, 0, spacing);
+        schedule.add(30, 34, MonsterType.FASTER, 2, 0, spacing, 2);
+        schedule.add(30, 34, MonsterType.INTENSE, 3, 0, spacing, 1);
+        schedule.add(35, 39, MonsterType.INTENSE, 5, 0, spacing);
+        schedule.add(40, 44, MonsterType.ULTIMATE, 2, 0, spacing);
+        schedule.add(45, 47, MonsterType.ULTIMATE, 3, 0, spacing);
+        schedule.add(48, 50, MonsterType.ULTIMATE, 5, 0, spacing);
+        return schedule;
+    }
+
+    /**
+    * Reads a WaveSchedule from a text file. Blank lines and lines starting
+    * with # are skipped. Waves are a single wave number or a range such as
+    * 5-9, and the spread may be left out for a group with a fixed count
+    *
+    * @param file The file to read
+    * @return WaveSchedule The schedule described by the file
+    * @throws IOException If the file cannot be read or a line is malformed
+    */
+    public static WaveSchedule load(File file) throws IOException {
+        WaveSchedule schedule = new WaveSchedule();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 5 && parts.length != 6) {
+                    throw new IOException(file + ":" + lineNumber
+                        + ": expected \"waves type count growth spacing"
+                        + " [spread]\"");
+                }
+                try {
+                    String[] waves = parts[0].split("-", 2);
+                    int first = Integer.parseInt(waves[0]);
+                    int last = waves.length > 1 ? Integer.parseInt(waves[1])
+                                                                    : first;
+                    int spread = parts.length > 5
+                                        ? Integer.parseInt(parts[5]) : 0;
+                    schedule.add(first, last, parseType(parts[1]),
+                                            Integer.parseInt(parts[2]),
+                                            Integer.parseInt(parts[3]),
+                                            Integer.parseInt(parts[4]),
+                                            spread);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + lineNumber + ": "
+                                                        + e.getMessage());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return schedule;
+    }
+
+    /**
+    * Adds a group with a fixed count to the end of the schedule
+    *
+    * @param firstWave The first wave the group is released in
+    * @param lastWave The last wave the group is released in
+    * @param type The id of the Monster type, such as MonsterType.REGULAR
+    * @param count The number of Monsters released in the first wave
+    * @param growth The change in the number of Monsters each later wave
+    * @param spacing The ticks before each Monster of the group is released
+    */
+    public void add(int firstWave, int lastWave, int type, int count,
+                                                    int growth, int spacing) {
+        add(firstWave, lastWave, type, count, growth, spacing, 0);
+    }
+
+    /**
+    * Adds a group to the end of the schedule
+    *
+    * @param firstWave The first wave the group is released in
+    * @param lastWave The last wave the group is released in
+    * @param type The id of the Monster type, such as MonsterType.REGULAR
+    * @param count The number of Monsters released in the first wave
+    * @param growth The change in the number of Monsters each later wave
+    * @param spacing The ticks before each Monster of the group is released
+    * @param spread The most extra Monsters added at random to each wave
+    */
+    public void add(int firstWave, int lastWave, int type, int count,
+                                    int growth, int spacing, int spread) {
+        if (firstWave < 1 || lastWave < firstWave) {
+            throw new IllegalArgumentException("bad wave range " + firstWave
+                                                            + "-" + lastWave);
+        }
+        if (type < 0 || type >= MonsterType.count()) {
+            throw new IllegalArgumentException("unknown monster type "
+                                                                    + type);
+        }
+        if (spacing < 1) {
+            throw new IllegalArgumentException("spacing must be at least 1");
+        }
+        if (spread < 0) {
+            throw new IllegalArgumentException("spread must not be negative");
+        }
+        if (size == firstWaves.length) {
+            firstWaves = Arrays.copyOf(firstWaves, size * 2);
+            lastWaves = Arrays.copyOf(lastWaves, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            growths = Arrays.copyOf(growths, size * 2);
+            spacings = Arrays.copyOf(spacings, size * 2);
+            spreads = Arrays.copyOf(spreads, size * 2);
+        }
+        firstWaves[size] = firstWave;
+        lastWaves[size] = lastWave;
+        types[size] = type;
+        counts[size] = count;
+        growths[size] = growth;
+        spacings[size] = spacing;
+        spreads[size] = spread;
+        size++;
+    }
+
+    /**
+    * Gets the most Monsters a wave can release, with every spread at its
+    * largest
+    *
+    * @param wave The wave number
+    * @return int The largest number of Monsters in the wave
+    */
+    public int getMaxSpawnCount(int wave) {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            int count = countInWave(i, wave);
+            if (count > 0) {
+                total += count + spreads[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+    * Compiles a wave into the tick each Monster is released on, counted
+    * from the start of the wave, and its type. Each group with a spread
+    * draws its extra Monsters from the generator, so the same generator
+    * state always compiles the same wave. The arrays must hold at least
+    * getMaxSpawnCount(wave) entries, and ticks come out in order
+    *
+    * @param wave The wave number
+    * @param rand The generator the random counts are drawn from
+    * @param ticks Receives the tick each Monster is released on
+    * @param spawnTypes Receives the type of each Monster
+    * @return int The number of Monsters the wave releases
+    */
+    public int compile(int wave, Random rand, int[] ticks,
+                                                        int[] spawnTypes) {
+        int spawned = 0;
+        int tick = 0;
+        for (int i = 0; i < size; i++) {
+            int count = countInWave(i, wave);
+            if (count > 0 && spreads[i] > 0) {
+                count += rand.nextInt(spreads[i] + 1);
+            }
+            for (int j = 0; j < count; j++) {
+                tick += spacings[i];
+                ticks[spawned] = tick;
+                spawnTypes[spawned] = types[i];
+                spawned++;
+            }
+        }
+        return spawned;
+    }
+
+    /**
+    * Gets the number of bytes writeTo needs to write this schedule
+    *
+    * @return int The size of the schedule when written
+    */
+    public int getWrittenSize() {
+        return 4 + size * 7 * 4;
+    }
+
+    /**
+    * Writes the schedule to a buffer
+    *
+    * @param buffer The buffer to write to
+    */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(firstWaves[i]);
+            buffer.putInt(lastWaves[i]);
+            buffer.putInt(types[i]);
+            buffer.putInt(counts[i]);
+            buffer.putInt(growths[i]);
+            buffer.putInt(spacings[i]);
+            buffer.putInt(spreads[i]);
+        }
+    }
+
+    /**
+    * Reads a schedule written by writeTo
+    *
+    * @param buffer The buffer to read from
+    * @return WaveSchedule The schedule that was written
+    */
+    public static WaveSchedule readFrom(ByteBuffer buffer) {
+        WaveSchedule schedule = new WaveSchedule();
+        int groups = buffer.getInt();
+        for (int i = 0; i < groups; i++) {
+            schedule.add(buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                                buffer.getInt(), buffer.getInt(),
+                                buffer.getInt(), buffer.getInt());
+        }
+        return schedule;
+    }
+
+    private int countInWave(int group, int wave) {
+        if (wave < firstWaves[group] || wave > lastWaves[group]) {
+            return 0;
+        }
+        return Math.max(0, counts[group]
+                                + growths[group] * (wave - firstWaves[group]));
+    }
+
+    private static int parseType(String name) {
+        MonsterType type = MonsterType.forName(name);
+        if (type == null) {
+            throw new IllegalArgumentException("unknown monster type "
+                                                                    + name);
+        }
+        return type.getId();
+    }
+}
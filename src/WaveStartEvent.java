@@ -0,0 +1,50 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A WaveStartEvent is a Java Flight Recorder event marking the moment a wave
+ * starts spawning, so that slow ticks can be lined up with the waves that
+ * caused them
+ *
+ * @author Graham Wright
+ * @version 1.0
+ */
+@Name("towerdefense.WaveStart")
+@Label("Wave Start")
+@Category("Tower Defense")
+@Description("A wave of Monsters starts spawning")
+@StackTrace(false)
+public class WaveStartEvent extends Event {
+
+    @Label("Tick")
+    private long tick;
+
+    @Label("Wave Number")
+    private int waveNumber;
+
+    @Label("Monster Count")
+    private int monsterCount;
+
+    @Label("Tower Count")
+    private int towerCount;
+
+    /**
+    * Records the start of a wave if the event is enabled
+    *
+    * @param engine The game starting the wave
+    */
+    public static void record(GameEngine engine) {
+        WaveStartEvent event = new WaveStartEvent();
+        if (event.shouldCommit()) {
+            event.tick = engine.getTick();
+            event.waveNumber = engine.getWaveNumber();
+            event.monsterCount = engine.getMonsters().size();
+            event.towerCount = engine.getTowers().size();
+            event.commit();
+        }
+    }
+}